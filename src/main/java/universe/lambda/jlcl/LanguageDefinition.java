@@ -20,14 +20,35 @@
 package universe.lambda.jlcl;
 
 import universe.lambda.jlcl.feature.FeatureList;
+import universe.lambda.jlcl.token.automaton.Automaton;
+import universe.lambda.jlcl.token.automaton.AutomatonCompiler;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTrie;
 import universe.lambda.jlcl.token.descriptor.DefinedTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.FloatTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.TokenMatcher;
 import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 /**
  * Immutable object containing definition of a language: it is used by components of this library to do work.
- * To create one, use the subclass {@link Builder}.
+ * To create one, use the subclass {@link Builder}.<br><br>
+ *
+ * All its fields are final and never modified after construction, and built-in descriptors are immutable too, so a
+ * single {@code LanguageDefinition} can be shared by any count of {@link universe.lambda.jlcl.token.Tokenizer}s running
+ * in different threads, without copies nor synchronization.
  *
  * @since 0.1
  */
@@ -68,18 +89,225 @@ public class LanguageDefinition {
 	public static final String IDENTIFIER = "IDENTIFIER";
 
 	/**
-	 * HashMap containing all the descriptors, indexed by name.
+	 * Priority of the descriptors added without one, except defined tokens and identifiers.
+	 *
+	 * @since 0.3
+	 *
+	 * @see Builder#addTokenType(TokenTypeDescriptor, int)
+	 */
+	public static final int DEFAULT_PRIORITY = 0;
+
+	/**
+	 * Priority of the {@link DefinedTokenTypeDescriptor}s added without one, so defined tokens are retained over
+	 * built-in descriptors: "f" is a float, but a defined token once added.
+	 *
+	 * @since 0.3
+	 *
+	 * @see Builder#addTokenType(TokenTypeDescriptor, int)
+	 */
+	public static final int DEFINED_PRIORITY = 1000;
+
+	/**
+	 * Priority of the descriptors named {@link #IDENTIFIER} (ignoring case) added without one, so keywords are retained
+	 * over identifiers.
+	 *
+	 * @since 0.3
+	 *
+	 * @see Builder#addTokenType(TokenTypeDescriptor, int)
+	 */
+	public static final int IDENTIFIER_PRIORITY = -1000;
+
+	/**
+	 * Unmodifiable map containing all the descriptors, indexed by name.
 	 *
 	 * @since 0.1
 	 */
-	private HashMap<String, TokenTypeDescriptor> descriptors;
+	private final Map<String, TokenTypeDescriptor> descriptors;
+
+	/**
+	 * All the descriptors, by priority: when several descriptors correspond to a value, the first one is retained.
+	 * They are sorted by decreasing priority, then by name.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenTypeDescriptor[] prioritized;
+
+	/**
+	 * Type ids of the descriptors, which are their indices in {@link #prioritized}.
+	 *
+	 * @since 0.3
+	 */
+	private final IdentityHashMap<TokenTypeDescriptor, Integer> typeIds;
+
+	/**
+	 * {@link DefinedTokenTrie} merging the values of the {@link DefinedTokenTypeDescriptor}s of {@link #prioritized}.
+	 *
+	 * @since 0.3
+	 */
+	private final DefinedTokenTrie definedTokens;
+
+	/**
+	 * {@link Automaton} compiled from all the descriptors, {@code null} if it has not been compiled.
+	 *
+	 * @since 0.3
+	 */
+	private final Automaton automaton;
+
+	/**
+	 * {@link Automaton}s compiled from each built-in descriptor alone, by type id, run by their {@link TokenMatcher}s.
+	 * They are compiled on first use.
+	 *
+	 * @since 0.3
+	 */
+	private final AtomicReferenceArray<Automaton> matcherAutomata;
+
+	/**
+	 * Fingerprint of the descriptors, in hexadecimal, {@code null} if one of them cannot be fingerprinted.
+	 *
+	 * @since 0.3
+	 */
+	private final String fingerprint;
 
 	/**
 	 * We don't want people to instantiate it like sane people do.
 	 *
+	 * @param descriptors all the descriptors, indexed by name. The map is copied.
+	 * @param priorities priority of each descriptor, indexed by name.
+	 * @param compileAutomaton whether to compile an {@link Automaton}.
+	 *
 	 * @since 0.1
 	 */
-	private LanguageDefinition() {}
+	private LanguageDefinition(Map<String, TokenTypeDescriptor> descriptors, Map<String, Integer> priorities,
+			boolean compileAutomaton) {
+		this(Builder.prioritize(descriptors.values(), priorities), compileAutomaton);
+	}
+
+	/**
+	 * Creates a new {@code LanguageDefinition} from ordered descriptors.
+	 *
+	 * @param prioritized all the descriptors, by priority. The array is not copied.
+	 * @param compileAutomaton whether to compile an {@link Automaton}.
+	 *
+	 * @since 0.3
+	 */
+	private LanguageDefinition(TokenTypeDescriptor[] prioritized, boolean compileAutomaton) {
+		this(prioritized, compileAutomaton ? compileAutomaton(prioritized) : null);
+	}
+
+	/**
+	 * Creates a new {@code LanguageDefinition} from ordered descriptors and the {@link Automaton} compiled from them.
+	 * It is used to restore serialized definitions without compiling again.
+	 *
+	 * @param prioritized all the descriptors, by priority, with distinct names. The array is not copied.
+	 * @param automaton {@code Automaton} compiled from {@code prioritized}, {@code null} if none.
+	 *
+	 * @since 0.3
+	 *
+	 * @see LanguageDefinitionSerializer
+	 */
+	LanguageDefinition(TokenTypeDescriptor[] prioritized, Automaton automaton) {
+		var map = new HashMap<String, TokenTypeDescriptor>();
+		for(var curr : prioritized) map.put(curr.getName(), curr);
+
+		this.descriptors = Collections.unmodifiableMap(map);
+		this.prioritized = prioritized;
+		this.definedTokens = new DefinedTokenTrie(prioritized);
+		this.typeIds = new IdentityHashMap<>();
+		for(int i = 0; i < prioritized.length; i++) {
+			typeIds.put(prioritized[i], i);
+		}
+		this.automaton = automaton;
+		this.matcherAutomata = new AtomicReferenceArray<>(prioritized.length);
+		this.fingerprint = fingerprint(prioritized);
+	}
+
+	/**
+	 * Computes the fingerprint of descriptors: the first 128 bits of the SHA-256 digest of their classes, names and
+	 * settings, in priority order, which does not depend on the order they have been added in. The settings of built-in
+	 * descriptors are their values and suffixes, other descriptors give theirs.
+	 *
+	 * @param descriptors descriptors to compute the fingerprint of, by priority.
+	 * @return the fingerprint, in hexadecimal, {@code null} if a descriptor which is not built-in does not give its
+	 * settings.
+	 *
+	 * @see TokenTypeDescriptor#getSettings()
+	 *
+	 * @since 0.3
+	 */
+	private static String fingerprint(TokenTypeDescriptor[] descriptors) {
+		var bytes = new ByteArrayOutputStream();
+		try(var out = new DataOutputStream(bytes)) {
+			out.writeInt(descriptors.length);
+			for(var descriptor : descriptors) {
+				String settings = null;
+				if(!LanguageDefinitionSerializer.isBuiltIn(descriptor)) {
+					settings = descriptor.getSettings();
+					if(settings == null) return null;
+				}
+
+				writeString(out, descriptor.getClass().getName());
+				writeString(out, descriptor.getName());
+
+				if(settings != null) {
+					writeString(out, settings);
+				} else if(descriptor instanceof DefinedTokenTypeDescriptor) {
+					writeString(out, ((DefinedTokenTypeDescriptor) descriptor).getValue());
+				} else if(descriptor instanceof FloatTokenTypeDescriptor) {
+					var suffixes = ((FloatTokenTypeDescriptor) descriptor).getSuffixes();
+					out.writeInt(suffixes.length);
+					for(var suffix : suffixes) writeString(out, suffix);
+				}
+			}
+		} catch(IOException e) {
+			// a ByteArrayOutputStream never fails.
+			throw new IllegalStateException(e);
+		}
+
+		byte[] hash;
+		try {
+			hash = MessageDigest.getInstance("SHA-256").digest(bytes.toByteArray());
+		} catch(NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256.
+			throw new IllegalStateException(e);
+		}
+
+		var result = new StringBuilder(32);
+		for(int i = 0; i < 16; i++) {
+			result.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Writes a {@code String} as its length followed by its UTF-16 code units, so consecutive ones cannot be confused.
+	 *
+	 * @param out output to write to.
+	 * @param value {@code String} to write.
+	 *
+	 * @throws IOException if writing fails.
+	 *
+	 * @since 0.3
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeInt(value.length());
+		out.writeChars(value);
+	}
+
+	/**
+	 * Compiles an {@link Automaton} from descriptors, logging a warning if it cannot be compiled.
+	 *
+	 * @param prioritized descriptors to compile, by priority.
+	 * @return the compiled {@code Automaton}, {@code null} if it cannot be compiled.
+	 *
+	 * @since 0.3
+	 */
+	private static Automaton compileAutomaton(TokenTypeDescriptor[] prioritized) {
+		var compiled = AutomatonCompiler.compile(prioritized);
+		if(compiled == null) {
+			Logger.warn("cannot compile an automaton from descriptors which are not built-in");
+		}
+		return compiled;
+	}
 
 	/**
 	 * Checks if a {@code String} correspond to a TokenDescriptor registered in this LanguageDefinition.
@@ -92,8 +320,10 @@ public class LanguageDefinition {
 	 * @see TokenTypeDescriptor#correspond(String)
 	 */
 	public boolean correspondToken(String str) {
-		for(var curr : descriptors.values()) {
-			if(curr.correspond(str)) return true;
+		if(definedTokens.correspond(str) >= 0) return true;
+
+		for(int i = 0; i < prioritized.length; i++) {
+			if(!definedTokens.isMerged(i) && prioritized[i].correspond(str)) return true;
 		}
 		return false;
 	}
@@ -111,8 +341,10 @@ public class LanguageDefinition {
 	 * @see TokenTypeDescriptor#mayCorrespond(String)
 	 */
 	public boolean mayCorrespondToken(String str) {
-		for(var curr : descriptors.values()) {
-			if(curr.mayCorrespond(str)) return true;
+		if(definedTokens.mayCorrespond(str)) return true;
+
+		for(int i = 0; i < prioritized.length; i++) {
+			if(!definedTokens.isMerged(i) && prioritized[i].mayCorrespond(str)) return true;
 		}
 		return false;
 	}
@@ -124,19 +356,84 @@ public class LanguageDefinition {
 	 * @return the {@code TokenTypeDescriptor} if found, null otherwise.
 	 *
 	 * @since 0.1
+	 *
+	 * @see #getTokenTypeDescriptors()
 	 */
 	public TokenTypeDescriptor getTokenTypeDescriptorByValue(String value) {
-		TokenTypeDescriptor retained = null;
-		for(var curr : descriptors.values()) {
-			if(curr.correspond(value)) {
-				if(curr.getName().equalsIgnoreCase(IDENTIFIER)) {
-					retained = curr;
-					continue;
-				}
-				return curr;
-			}
+		var defined = definedTokens.correspond(value);
+		// only descriptors with a higher priority than the defined one need to be checked.
+		var end = defined < 0 ? prioritized.length : defined;
+
+		for(int i = 0; i < end; i++) {
+			if(!definedTokens.isMerged(i) && prioritized[i].correspond(value)) return prioritized[i];
 		}
-		return retained;
+		return definedTokens.getDescriptor(defined);
+	}
+
+	/**
+	 * Gets all the {@link TokenTypeDescriptor}s of this {@code LanguageDefinition}, by priority: when several of them
+	 * correspond to a value, the first one is retained. They are sorted by decreasing priority, then by name.
+	 *
+	 * @return a copy of the descriptors array.
+	 *
+	 * @since 0.3
+	 */
+	public TokenTypeDescriptor[] getTokenTypeDescriptors() {
+		return prioritized.clone();
+	}
+
+	/**
+	 * Gets the type id of a {@link TokenTypeDescriptor} of this {@code LanguageDefinition}. Type ids are dense, from
+	 * {@code 0} to {@link #getTokenTypeCount()} excluded, and are the indices of the descriptors in
+	 * {@link #getTokenTypeDescriptors()}.
+	 *
+	 * @param descriptor descriptor to get the type id of.
+	 * @return the type id, {@code -1} if {@code descriptor} is not part of this {@code LanguageDefinition}.
+	 *
+	 * @since 0.3
+	 */
+	public int getTypeId(TokenTypeDescriptor descriptor) {
+		var id = typeIds.get(descriptor);
+		return id == null ? -1 : id;
+	}
+
+	/**
+	 * Gets the {@link TokenTypeDescriptor} with the specified type id.
+	 *
+	 * @param typeId type id of the descriptor.
+	 * @return the descriptor.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code typeId} is not a type id of this {@code LanguageDefinition}.
+	 *
+	 * @since 0.3
+	 *
+	 * @see #getTypeId(TokenTypeDescriptor)
+	 */
+	public TokenTypeDescriptor getTokenTypeDescriptor(int typeId) {
+		return prioritized[typeId];
+	}
+
+	/**
+	 * Gets the count of {@link TokenTypeDescriptor}s of this {@code LanguageDefinition}.
+	 *
+	 * @return the count of descriptors.
+	 *
+	 * @since 0.3
+	 */
+	public int getTokenTypeCount() {
+		return prioritized.length;
+	}
+
+	/**
+	 * Gets the {@link DefinedTokenTrie} merging the values of the {@link DefinedTokenTypeDescriptor}s of this
+	 * {@code LanguageDefinition}. Its descriptor indices are the ones of {@link #getTokenTypeDescriptors()}.
+	 *
+	 * @return the {@code DefinedTokenTrie}.
+	 *
+	 * @since 0.3
+	 */
+	public DefinedTokenTrie getDefinedTokenTrie() {
+		return definedTokens;
 	}
 
 	/**
@@ -151,6 +448,67 @@ public class LanguageDefinition {
 		return descriptors.get(name);
 	}
 
+	/**
+	 * Gets the {@link Automaton} compiled from all the descriptors of this {@code LanguageDefinition}.
+	 *
+	 * @return the {@code Automaton}, {@code null} if it has not been compiled.
+	 *
+	 * @since 0.3
+	 *
+	 * @see Builder#setCompileAutomaton(boolean)
+	 */
+	public Automaton getAutomaton() {
+		return automaton;
+	}
+
+	/**
+	 * Creates a {@link TokenMatcher} for a descriptor of this {@code LanguageDefinition}. Built-in descriptors get one
+	 * running an {@link Automaton} compiled from them alone, so each code-point is handled in constant time. Other
+	 * descriptors create their own.
+	 *
+	 * @param typeId type id of the descriptor.
+	 * @return a new {@code TokenMatcher}.
+	 *
+	 * @throws IndexOutOfBoundsException if no descriptor has this type id.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenTypeDescriptor#newMatcher()
+	 */
+	public TokenMatcher newMatcher(int typeId) {
+		var descriptor = prioritized[typeId];
+		if(!LanguageDefinitionSerializer.isBuiltIn(descriptor)) return descriptor.newMatcher();
+
+		var compiled = matcherAutomata.get(typeId);
+		if(compiled == null) {
+			// threads compiling it at once get equivalent automata.
+			compiled = AutomatonCompiler.compile(new TokenTypeDescriptor[]{descriptor});
+			matcherAutomata.set(typeId, compiled);
+		}
+		return compiled.newMatcher();
+	}
+
+	/**
+	 * Gets the fingerprint of this {@code LanguageDefinition}, computed when it is built. It covers the class, name and
+	 * settings (values of defined descriptors, float suffixes) of each descriptor, which are what the enabled
+	 * {@link universe.lambda.jlcl.feature.Feature}s and their data result in, and their priority order. It does not
+	 * depend on the order the descriptors have been added in, nor on whether an {@link Automaton} has been
+	 * compiled.<br><br>
+	 *
+	 * Definitions with the same fingerprint read the same tokens. Descriptors which are not built-in are identified by
+	 * the settings they give: if one of them does not, this definition has no fingerprint.
+	 *
+	 * @return the 128-bit fingerprint, as 32 lowercase hexadecimal digits, {@code null} if this definition cannot be
+	 * fingerprinted.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenTypeDescriptor#getSettings()
+	 */
+	public String getFingerprint() {
+		return fingerprint;
+	}
+
 	/**
 	 * Class used for building a LanguageDefinition.
 	 *
@@ -171,6 +529,20 @@ public class LanguageDefinition {
 		 */
 		private HashMap<String, TokenTypeDescriptor> desc = new HashMap<>();
 
+		/**
+		 * Priority of each descriptor of {@link #desc}, indexed by name.
+		 *
+		 * @since 0.3
+		 */
+		private HashMap<String, Integer> priorities = new HashMap<>();
+
+		/**
+		 * Flag indicating whether the {@link #build()} method compiles an {@link Automaton}.
+		 *
+		 * @since 0.3
+		 */
+		private boolean compileAutomaton;
+
 		/**
 		 * Creates a new {@code Builder}. Use the default {@link FeatureList}.
 		 *
@@ -194,7 +566,25 @@ public class LanguageDefinition {
 		}
 
 		/**
-		 * Adds a {@code TokenTypeDescriptor} to the LanguageDefinition.
+		 * Adds a {@code DefinedTokenTypeDescriptor} with specified parameters and priority.
+		 *
+		 * @param name name of the {@link DefinedTokenTypeDescriptor}.
+		 * @param value value of the {@code DefinedTokenTypeDescriptor}.
+		 * @param priority priority of the {@code DefinedTokenTypeDescriptor}.
+		 * @return the current instance.
+		 *
+		 * @since 0.3
+		 *
+		 * @see #addTokenType(TokenTypeDescriptor, int)
+		 */
+		public Builder addTokenType(String name, String value, int priority) {
+			return addTokenType(new DefinedTokenTypeDescriptor(name, value), priority);
+		}
+
+		/**
+		 * Adds a {@code TokenTypeDescriptor} to the LanguageDefinition, with {@link #DEFINED_PRIORITY} if it is a
+		 * {@link DefinedTokenTypeDescriptor}, {@link #IDENTIFIER_PRIORITY} if it is named {@link #IDENTIFIER} (ignoring
+		 * case), {@link #DEFAULT_PRIORITY} otherwise.
 		 *
 		 * @param descriptor to add.
 		 * @return the current instance.
@@ -202,7 +592,30 @@ public class LanguageDefinition {
 		 * @since 0.1
 		 */
 		public Builder addTokenType(TokenTypeDescriptor descriptor) {
+			if(descriptor instanceof DefinedTokenTypeDescriptor) {
+				return addTokenType(descriptor, DEFINED_PRIORITY);
+			}
+
+			var identifier = descriptor.getName().equalsIgnoreCase(IDENTIFIER);
+			return addTokenType(descriptor, identifier ? IDENTIFIER_PRIORITY : DEFAULT_PRIORITY);
+		}
+
+		/**
+		 * Adds a {@code TokenTypeDescriptor} to the LanguageDefinition with a priority. When several descriptors
+		 * correspond to a value, the one with the highest priority is retained, then the one with the lowest name, so
+		 * the result never depends on the order descriptors have been added in.<br><br>
+		 *
+		 * A descriptor replaces any descriptor added before with the same name, along with its priority.
+		 *
+		 * @param descriptor to add.
+		 * @param priority priority of {@code descriptor}.
+		 * @return the current instance.
+		 *
+		 * @since 0.3
+		 */
+		public Builder addTokenType(TokenTypeDescriptor descriptor, int priority) {
 			desc.put(descriptor.getName(), descriptor);
+			priorities.put(descriptor.getName(), priority);
 			return this;
 		}
 
@@ -219,6 +632,23 @@ public class LanguageDefinition {
 			return this;
 		}
 
+		/**
+		 * Sets whether the {@link #build()} method compiles all descriptors into an {@link Automaton}, used by the
+		 * {@link universe.lambda.jlcl.token.Tokenizer} to read {@code Token}s in a single pass. Only built-in descriptors
+		 * can be compiled: if others have been added, no {@code Automaton} is compiled.
+		 *
+		 * @param compileAutomaton whether to compile an {@code Automaton}.
+		 * @return the current instance.
+		 *
+		 * @since 0.3
+		 *
+		 * @see AutomatonCompiler
+		 */
+		public Builder setCompileAutomaton(boolean compileAutomaton) {
+			this.compileAutomaton = compileAutomaton;
+			return this;
+		}
+
 		/**
 		 * Builds a {@link LanguageDefinition} from this {@code Builder}.
 		 *
@@ -231,10 +661,25 @@ public class LanguageDefinition {
 				featureList.apply(this);
 			}
 
-			var def = new LanguageDefinition();
-			// we don't want modifications of this Builder HashMap to modify the LanguageDefinition HashMap.
-			def.descriptors = new HashMap<>(desc);
-			return def;
+			// we don't want modifications of this Builder HashMap to modify the LanguageDefinition map.
+			return new LanguageDefinition(desc, priorities, compileAutomaton);
+		}
+
+		/**
+		 * Orders descriptors by decreasing priority, then by name, which are unique.
+		 *
+		 * @param descriptors descriptors to order.
+		 * @param priorities priority of each descriptor, indexed by name.
+		 * @return the ordered descriptors.
+		 *
+		 * @since 0.3
+		 */
+		private static TokenTypeDescriptor[] prioritize(Collection<TokenTypeDescriptor> descriptors,
+				Map<String, Integer> priorities) {
+			var ordered = descriptors.toArray(new TokenTypeDescriptor[0]);
+			Arrays.sort(ordered, Comparator.comparing((TokenTypeDescriptor curr) -> priorities.get(curr.getName()),
+					Comparator.reverseOrder()).thenComparing(TokenTypeDescriptor::getName));
+			return ordered;
 		}
 	}
 }
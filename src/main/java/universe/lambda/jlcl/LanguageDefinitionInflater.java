@@ -36,15 +36,6 @@ import java.nio.file.Path;
  * @see LanguageDefinition
  */
 public final class LanguageDefinitionInflater {
-    /**
-     * {@link LanguageDefinition} used by the {@code LanguageDefinitionInflater} to inflate files.<br><br>
-     *
-     * <strong>RECYCLING INTENSIFIES</strong>
-     *
-     * @since 0.2
-    */
-    private static LanguageDefinition inflaterDef;
-
     /**
      * Inflates a {@link LanguageDefinition} from the file represented.
      *
@@ -56,7 +47,6 @@ public final class LanguageDefinitionInflater {
     */
     public static LanguageDefinition inflate(Path path) {
         Logger.debug("inflating LanguageDefinition...");
-        init();
 
         if(!Files.isRegularFile(path)) {
             Logger.error("file to inflate does not exists!");
@@ -70,8 +60,8 @@ public final class LanguageDefinitionInflater {
 
         Token[] tokens;
 
-        try (var reader = Files.newBufferedReader(path)) {
-            Tokenizer tokenizer = new Tokenizer(inflaterDef, reader, path.toString());
+        try {
+            Tokenizer tokenizer = Tokenizer.open(InflaterDefinition.INSTANCE, path);
             tokens = tokenizer.readAllTokens();
         } catch(IOException e) {
             e.printStackTrace();
@@ -101,7 +91,7 @@ public final class LanguageDefinitionInflater {
                 Token value = tokens[++i];
                 Logger.debug("processing token " + i + "/" + (tokens.length - 1) + " '" + value.getValue() + "'");
 
-                if(!id.getDescriptor().getName().equals(LanguageDefinition.IDENTIFIER)) {
+                if(id.getTypeId() != InflaterDefinition.IDENTIFIER) {
                         Logger.fatal(
                                 current.getSource()
                                         + ":" + id.getLine() + ":" + id.getColumn()
@@ -110,10 +100,7 @@ public final class LanguageDefinitionInflater {
                         return null;
                 }
 
-                if(
-                        !value.getDescriptor().getName().equals("STRING") &&
-                        !value.getDescriptor().getName().equals("CHAR")
-                ) {
+                if(value.getTypeId() != InflaterDefinition.STRING && value.getTypeId() != InflaterDefinition.CHAR) {
                     Logger.fatal(
                             current.getSource()
                                     + ":" + value.getLine() + ":" + value.getColumn()
@@ -139,7 +126,7 @@ public final class LanguageDefinitionInflater {
                 }
                 Token featureName = tokens[++i];
 
-                if(!featureName.getDescriptor().getName().equals("IDENTIFIER")) {
+                if(featureName.getTypeId() != InflaterDefinition.IDENTIFIER) {
 	                Logger.fatal(
 			                featureName.getSource()
 					                + ":" + featureName.getLine() + ":" + featureName.getColumn()
@@ -161,13 +148,63 @@ public final class LanguageDefinitionInflater {
     }
 
     /**
-     * Initialize the inflater's instance of {@link LanguageDefinition}.
+     * Holder of the inflater's instance of {@link LanguageDefinition}. It is created once, when first used, and class
+     * initialization publishes it safely to all threads, without locking afterwards.
      *
-     * @since 0.2
+     * @since 0.3
     */
-    private static void init() {
-        if(inflaterDef != null) return;
+    private static final class InflaterDefinition {
+        /**
+         * {@link LanguageDefinition} used by the {@code LanguageDefinitionInflater} to inflate files.<br><br>
+         *
+         * <strong>RECYCLING INTENSIFIES</strong>
+         *
+         * @since 0.2
+        */
+        private static final LanguageDefinition INSTANCE = create();
+
+        /**
+         * Type id of identifiers in {@link #INSTANCE}.
+         *
+         * @since 0.3
+        */
+        private static final int IDENTIFIER = getTypeId(LanguageDefinition.IDENTIFIER);
+
+        /**
+         * Type id of strings in {@link #INSTANCE}.
+         *
+         * @since 0.3
+        */
+        private static final int STRING = getTypeId(LanguageDefinition.STRING);
+
+        /**
+         * Type id of chars in {@link #INSTANCE}.
+         *
+         * @since 0.3
+        */
+        private static final int CHAR = getTypeId(LanguageDefinition.CHAR);
+
+        /**
+         * Gets the type id of a descriptor of {@link #INSTANCE}.
+         *
+         * @param name name of the descriptor.
+         * @return the type id.
+         *
+         * @since 0.3
+        */
+        private static int getTypeId(String name) {
+            return INSTANCE.getTypeId(INSTANCE.getTokenTypeDescriptorByName(name));
+        }
+    }
 
+    /**
+     * Creates the inflater's instance of {@link LanguageDefinition}.
+     *
+     * @return the created {@code LanguageDefinition}.
+     *
+     * @since 0.2
+    */
+    private static LanguageDefinition create() {
         LanguageDefinition.Builder builder = new LanguageDefinition.Builder();
 
         builder.addTokenType("TOKEN_DEF", "token");
@@ -185,6 +222,6 @@ public final class LanguageDefinitionInflater {
         // builder.addTokenType("FEATURE_LINE_ENDING", "line_ending");
         // builder.addTokenType("FEATURE_WHITESPACE", "whitespace");
 
-        inflaterDef = builder.build();
+        return builder.build();
     }
 }
@@ -0,0 +1,444 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl;
+
+import universe.lambda.jlcl.token.automaton.Automaton;
+import universe.lambda.jlcl.token.descriptor.CharTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.FloatTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.IdentifierTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.IntegerTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.StringTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Class writing {@link LanguageDefinition}s in a compact binary format, and reading them back without inflating nor
+ * compiling them again: the descriptors are stored by priority, with the tables of their {@link Automaton} if it has
+ * been compiled.<br><br>
+ *
+ * The format starts with a header holding a magic number, the format version and a 128-bit fingerprint of the content,
+ * checked when reading. Only definitions made of built-in descriptors can be written.
+ *
+ * @since 0.3
+ */
+public final class LanguageDefinitionSerializer {
+	/**
+	 * Magic number starting the format, {@code "ULCD"} in ASCII.
+	 *
+	 * @since 0.3
+	 */
+	private static final int MAGIC = 0x554C4344;
+
+	/**
+	 * Version of the format, changed whenever the format is.
+	 *
+	 * @since 0.3
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Length of the fingerprint of the content, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	private static final int FINGERPRINT_LENGTH = 16;
+
+	/**
+	 * Length of the header: magic number, version, fingerprint and content length.
+	 *
+	 * @since 0.3
+	 */
+	private static final int HEADER_LENGTH = 4 + 4 + FINGERPRINT_LENGTH + 4;
+
+	/**
+	 * Kinds of descriptors, the index of each class being the kind written in the format.
+	 *
+	 * @since 0.3
+	 */
+	private static final Class<?>[] KINDS = {
+			DefinedTokenTypeDescriptor.class,
+			IntegerTokenTypeDescriptor.class,
+			FloatTokenTypeDescriptor.class,
+			CharTokenTypeDescriptor.class,
+			StringTokenTypeDescriptor.class,
+			IdentifierTokenTypeDescriptor.class
+	};
+
+	/** Static-access-only class, so no instance :) */
+	private LanguageDefinitionSerializer() {}
+
+	/**
+	 * Checks if a {@link LanguageDefinition} can be written: all its descriptors must be built-in.
+	 *
+	 * @param definition definition to check.
+	 * @return {@code true} if it can be written, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public static boolean isSerializable(LanguageDefinition definition) {
+		for(var descriptor : definition.getTokenTypeDescriptors()) {
+			if(!isBuiltIn(descriptor)) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks if a descriptor is built-in, so can be written.
+	 *
+	 * @param descriptor descriptor to check.
+	 * @return {@code true} if it is built-in, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	static boolean isBuiltIn(TokenTypeDescriptor descriptor) {
+		return getKind(descriptor) >= 0;
+	}
+
+	/**
+	 * Writes a {@link LanguageDefinition} to a file. The file is first written under a temporary name, then renamed, so
+	 * readers never see a partial file, even when several processes write it at once.
+	 *
+	 * @param definition definition to write.
+	 * @param path path of the file to write.
+	 * @return {@code true} if the file has been written, {@code false} if an error happened, which is logged.
+	 *
+	 * @throws IllegalArgumentException if {@code definition} is not serializable.
+	 *
+	 * @since 0.3
+	 *
+	 * @see #isSerializable(LanguageDefinition)
+	 */
+	public static boolean write(LanguageDefinition definition, Path path) {
+		var bytes = toBytes(definition);
+		var directory = path.toAbsolutePath().getParent();
+		Path temp = null;
+
+		try {
+			temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+			Files.write(temp, bytes);
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			return true;
+		} catch(IOException e) {
+			Logger.error(path + ": " + e);
+			if(temp != null) {
+				try {
+					Files.deleteIfExists(temp);
+				} catch(IOException ignored) {
+					// the write error has already been logged.
+				}
+			}
+			return false;
+		}
+	}
+
+	/**
+	 * Writes a {@link LanguageDefinition} to a stream.
+	 *
+	 * @param definition definition to write.
+	 * @param out stream to write to. It is not closed.
+	 *
+	 * @throws IOException if writing to {@code out} fails.
+	 * @throws IllegalArgumentException if {@code definition} is not serializable.
+	 *
+	 * @since 0.3
+	 *
+	 * @see #isSerializable(LanguageDefinition)
+	 */
+	public static void write(LanguageDefinition definition, OutputStream out) throws IOException {
+		out.write(toBytes(definition));
+	}
+
+	/**
+	 * Reads a {@link LanguageDefinition} from a file written by {@link #write(LanguageDefinition, Path)}. The file is
+	 * memory mapped.
+	 *
+	 * @param path path of the file to read.
+	 * @return the read definition, {@code null} if the file cannot be read or is not valid, which is logged.
+	 *
+	 * @since 0.3
+	 */
+	public static LanguageDefinition read(Path path) {
+		try(var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), path + ": ");
+		} catch(IOException e) {
+			Logger.error(path + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Reads a {@link LanguageDefinition} written by {@link #write(LanguageDefinition, OutputStream)}.
+	 *
+	 * @param buffer buffer to read from, from its position, which is moved after the definition.
+	 * @return the read definition, {@code null} if the content is not valid or has been written with another format
+	 * version, which is logged.
+	 *
+	 * @since 0.3
+	 */
+	public static LanguageDefinition read(ByteBuffer buffer) {
+		return read(buffer, "");
+	}
+
+	/**
+	 * Reads a {@link LanguageDefinition} written by {@link #write(LanguageDefinition, OutputStream)}.
+	 *
+	 * @param buffer buffer to read from, from its position, which is moved after the definition.
+	 * @param prefix prefix of the logged messages.
+	 * @return the read definition, {@code null} if the content is not valid or has been written with another format
+	 * version.
+	 *
+	 * @since 0.3
+	 */
+	private static LanguageDefinition read(ByteBuffer buffer, String prefix) {
+		try {
+			if(buffer.getInt() != MAGIC) {
+				Logger.error(prefix + "not a compiled LanguageDefinition");
+				return null;
+			}
+			var version = buffer.getInt();
+			if(version != VERSION) {
+				Logger.error(prefix + "unsupported compiled LanguageDefinition version: " + version);
+				return null;
+			}
+
+			var fingerprint = new byte[FINGERPRINT_LENGTH];
+			buffer.get(fingerprint);
+			var length = buffer.getInt();
+			if(length < 0 || length > buffer.remaining()) {
+				Logger.error(prefix + "truncated compiled LanguageDefinition");
+				return null;
+			}
+
+			var content = buffer.slice();
+			content.limit(length);
+			buffer.position(buffer.position() + length);
+			if(!Arrays.equals(fingerprint, fingerprint(content.duplicate()))) {
+				Logger.error(prefix + "corrupted compiled LanguageDefinition");
+				return null;
+			}
+
+			return readContent(content);
+		} catch(BufferUnderflowException | IllegalArgumentException e) {
+			Logger.error(prefix + "invalid compiled LanguageDefinition: " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Writes a {@link LanguageDefinition}, header included.
+	 *
+	 * @param definition definition to write.
+	 * @return the written bytes.
+	 *
+	 * @throws IllegalArgumentException if {@code definition} is not serializable.
+	 *
+	 * @since 0.3
+	 */
+	private static byte[] toBytes(LanguageDefinition definition) {
+		var bytes = new ByteArrayOutputStream();
+
+		try(var out = new DataOutputStream(bytes)) {
+			// room for the header, written once the content is known.
+			out.write(new byte[HEADER_LENGTH]);
+
+			var descriptors = definition.getTokenTypeDescriptors();
+			out.writeInt(descriptors.length);
+			for(var descriptor : descriptors) {
+				var kind = getKind(descriptor);
+				if(kind < 0) {
+					throw new IllegalArgumentException("Descriptor is not built-in: " + descriptor.getName());
+				}
+
+				out.writeByte(kind);
+				writeString(out, descriptor.getName());
+				if(descriptor instanceof DefinedTokenTypeDescriptor) {
+					writeString(out, ((DefinedTokenTypeDescriptor) descriptor).getValue());
+				} else if(descriptor instanceof FloatTokenTypeDescriptor) {
+					var suffixes = ((FloatTokenTypeDescriptor) descriptor).getSuffixes();
+					out.writeInt(suffixes.length);
+					for(var suffix : suffixes) writeString(out, suffix);
+				}
+			}
+
+			var automaton = definition.getAutomaton();
+			out.writeBoolean(automaton != null);
+			if(automaton != null) automaton.write(out);
+		} catch(IOException e) {
+			// a ByteArrayOutputStream never fails.
+			throw new IllegalStateException(e);
+		}
+
+		var result = ByteBuffer.wrap(bytes.toByteArray());
+		var content = result.duplicate().position(HEADER_LENGTH);
+		result.putInt(MAGIC).putInt(VERSION).put(fingerprint(content)).putInt(result.capacity() - HEADER_LENGTH);
+		return result.array();
+	}
+
+	/**
+	 * Reads the content following the header.
+	 *
+	 * @param in buffer holding the content.
+	 * @return the read definition.
+	 *
+	 * @throws IllegalArgumentException if the content is not valid.
+	 * @throws BufferUnderflowException if the content is truncated.
+	 *
+	 * @since 0.3
+	 */
+	private static LanguageDefinition readContent(ByteBuffer in) {
+		var count = in.getInt();
+		if(count < 0 || count > in.remaining()) throw new IllegalArgumentException("Invalid descriptor count: " + count);
+
+		var descriptors = new TokenTypeDescriptor[count];
+		var names = new HashSet<String>();
+		for(int i = 0; i < count; i++) {
+			var kind = in.get();
+			var name = readString(in);
+			if(!names.add(name)) throw new IllegalArgumentException("Duplicate descriptor: " + name);
+
+			switch(kind) {
+				case 0:
+					descriptors[i] = new DefinedTokenTypeDescriptor(name, readString(in));
+					break;
+				case 1:
+					descriptors[i] = new IntegerTokenTypeDescriptor();
+					break;
+				case 2:
+					var suffixes = new String[checkLength(in.getInt(), in)];
+					for(int j = 0; j < suffixes.length; j++) suffixes[j] = readString(in);
+					descriptors[i] = new FloatTokenTypeDescriptor(suffixes);
+					break;
+				case 3:
+					descriptors[i] = new CharTokenTypeDescriptor();
+					break;
+				case 4:
+					descriptors[i] = new StringTokenTypeDescriptor();
+					break;
+				case 5:
+					descriptors[i] = new IdentifierTokenTypeDescriptor();
+					break;
+				default:
+					throw new IllegalArgumentException("Invalid descriptor kind: " + kind);
+			}
+			if(!descriptors[i].getName().equals(name)) throw new IllegalArgumentException("Invalid name: " + name);
+		}
+
+		var automaton = in.get() != 0 ? Automaton.read(in, descriptors) : null;
+		return new LanguageDefinition(descriptors, automaton);
+	}
+
+	/**
+	 * Gets the kind of a descriptor in the format.
+	 *
+	 * @param descriptor descriptor to get the kind of.
+	 * @return the kind, {@code -1} if {@code descriptor} is not built-in.
+	 *
+	 * @since 0.3
+	 */
+	private static int getKind(TokenTypeDescriptor descriptor) {
+		for(int i = 0; i < KINDS.length; i++) {
+			if(KINDS[i] == descriptor.getClass()) return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Computes the fingerprint of content: the first bytes of its SHA-256 digest.
+	 *
+	 * @param content content to compute the fingerprint of, from its position to its limit.
+	 * @return the fingerprint.
+	 *
+	 * @since 0.3
+	 */
+	private static byte[] fingerprint(ByteBuffer content) {
+		try {
+			var digest = MessageDigest.getInstance("SHA-256");
+			digest.update(content);
+			return Arrays.copyOf(digest.digest(), FINGERPRINT_LENGTH);
+		} catch(NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256.
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Writes a {@code String} as its length followed by its UTF-16 code units.
+	 *
+	 * @param out output to write to.
+	 * @param value {@code String} to write.
+	 *
+	 * @throws IOException if writing fails.
+	 *
+	 * @since 0.3
+	 */
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		out.writeInt(value.length());
+		out.writeChars(value);
+	}
+
+	/**
+	 * Reads a {@code String} written by {@link #writeString(DataOutputStream, String)}.
+	 *
+	 * @param in buffer to read from.
+	 * @return the read {@code String}.
+	 *
+	 * @throws IllegalArgumentException if the length is not valid.
+	 *
+	 * @since 0.3
+	 */
+	private static String readString(ByteBuffer in) {
+		var chars = new char[checkLength(in.getInt(), in)];
+		in.asCharBuffer().get(chars);
+		in.position(in.position() + chars.length * 2);
+		return new String(chars);
+	}
+
+	/**
+	 * Checks a length read from a buffer.
+	 *
+	 * @param length length to check.
+	 * @param in buffer the elements are read from, each of them taking at least one byte.
+	 * @return {@code length}.
+	 *
+	 * @throws IllegalArgumentException if {@code length} is negative or greater than the remaining bytes.
+	 *
+	 * @since 0.3
+	 */
+	private static int checkLength(int length, ByteBuffer in) {
+		if(length < 0 || length > in.remaining()) throw new IllegalArgumentException("Invalid length: " + length);
+		return length;
+	}
+}
@@ -103,6 +103,19 @@ public final class Logger {
 		logErr(LogLevel.FATAL, message);
 	}
 
+	/**
+	 * Checks if messages with the specified log level are logged. It allows to skip building messages which would be
+	 * ignored.
+	 *
+	 * @param level level to check.
+	 * @return {@code true} if {@code level.position >= minimumLogLevel.position}, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public static boolean isLoggable(LogLevel level) {
+		return level.position >= minimumLogLevel.position;
+	}
+
 	/**
 	 * Logs a message with the specified log level to the standard output.<br>
 	 *
@@ -0,0 +1,49 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.feature;
+
+import universe.lambda.jlcl.LanguageDefinition;
+import universe.lambda.jlcl.token.automaton.Automaton;
+
+/**
+ * Feature compiling the {@link LanguageDefinition} into an {@link Automaton}. It is not enabled by default.
+ *
+ * @see LanguageDefinition.Builder#setCompileAutomaton(boolean)
+ * @see Feature
+ * @see LanguageDefinition
+ *
+ * @since 0.3
+ */
+public class AutomatonFeature extends AbstractFeature {
+
+	/**
+	 * Creates a new {@code AutomatonFeature}.
+	 *
+	 * @since 0.3
+	 */
+	public AutomatonFeature() {
+		super("automaton");
+	}
+
+	@Override
+	public void apply(LanguageDefinition.Builder builder) {
+		builder.setCompileAutomaton(true);
+	}
+}
@@ -113,6 +113,7 @@ public class FeatureList {
 			addFeature(new StringFeature());
 			addFeature(new IntegerFeature());
 			addFeature(new FloatFeature());
+			addFeature(new AutomatonFeature());
 		}
 
 		/**
@@ -0,0 +1,175 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.Logger;
+
+/**
+ * Reads the tokens of a source again after an edit, reusing the tokens which are not affected by it.<br><br>
+ *
+ * Reading resumes after the last token the edit cannot have changed: one ending before the edit, far enough for the
+ * code-points examined to read it not to reach the edit. Tokens are then read in the edited content until one starts
+ * where a token of the previous {@link TokenBuffer} started, past the edit. Since a {@link Tokenizer} has no other
+ * state than its position between tokens, the following tokens are the previous ones, only shifted: they are reused
+ * instead of being read again.<br><br>
+ *
+ * The previous {@code TokenBuffer} may end with an error: its tokens stop before it, so reading resumes the same way
+ * and goes on until the end of the edited content, or until the error if the edit did not fix it. The returned
+ * {@code TokenBuffer} equals the one a {@code Tokenizer} would read from the edited content, and can be edited again.
+ * Errors found while reading are logged; errors of the reused tokens are not logged again.
+ *
+ * @since 0.3
+ */
+public final class IncrementalTokenizer {
+	/**
+	 * Static-access-only class, so no instance :)
+	 */
+	private IncrementalTokenizer() {}
+
+	/**
+	 * Reads the tokens of the source of {@code previous} again, after {@code removedLength} code-points at
+	 * {@code offset} have been replaced with {@code inserted}.
+	 *
+	 * @param previous tokens of the source before the edit.
+	 * @param offset offset of the edit.
+	 * @param removedLength count of code-points removed at {@code offset}.
+	 * @param inserted code-points inserted at {@code offset}.
+	 * @return the tokens of the edited source.
+	 *
+	 * @throws IllegalArgumentException if {@code previous} does not hold the whole content of its source, as it has not
+	 * been read from its start, or if the edit is out of its bounds.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenBuffer#isWholeSource()
+	 */
+	public static TokenBuffer retokenize(TokenBuffer previous, int offset, int removedLength, CharSequence inserted) {
+		if(!previous.isWholeSource()) throw new IllegalArgumentException("Tokens do not hold the whole source");
+
+		var oldText = previous.getContent();
+		var oldLength = previous.getContentLength();
+		if(offset < 0 || removedLength < 0 || offset > oldLength - removedLength) {
+			throw new IllegalArgumentException("Edit out of bounds: " + offset + "+" + removedLength + " in "
+					+ oldLength);
+		}
+
+		var insertedLength = inserted.length();
+		var delta = insertedLength - removedLength;
+		var text = new char[oldLength + delta];
+		System.arraycopy(oldText, 0, text, 0, offset);
+		for(int i = 0; i < insertedLength; i++) {
+			text[offset + i] = inserted.charAt(i);
+		}
+		System.arraycopy(oldText, offset + removedLength, text, offset + insertedLength, oldLength - offset - removedLength);
+
+		var definition = previous.getDefinition();
+		var source = previous.getSource();
+		var tokens = new TokenBuffer(definition, source, text, text.length);
+
+		// tokens ending before this offset have only examined code-points before the edit.
+		var kept = firstEndingAtOrAfter(previous, offset - previous.getLookahead());
+		tokens.addAll(previous, 0, kept);
+
+		Tokenizer tokenizer;
+		if(kept == 0) {
+			tokenizer = new Tokenizer(definition, text, text.length, 0, 1, 0, source);
+		} else {
+			var last = kept - 1;
+			tokenizer = Tokenizer.resumeAfter(definition, text, text.length, previous.getStart(last),
+					previous.getEnd(last), previous.getLine(last), previous.getColumn(last), source);
+		}
+
+		var editEnd = offset + insertedLength;
+		var complete = false;
+
+		while(true) {
+			var start = tokenizer.peekOffset();
+			var index = start >= editEnd ? previous.indexOfStart(start - delta) : -1;
+
+			if(!tokenizer.readNext(tokens, Integer.MAX_VALUE)) {
+				complete = tokenizer.isAtEnd() && !tokenizer.hasFailed();
+				if(tokenizer.getDeferredError() != null) Logger.error(tokenizer.getDeferredError());
+				break;
+			}
+
+			if(index >= 0) {
+				// realigned: the token just read is the previous one, and so are the following ones.
+				shift(previous, index + 1, tokens, delta);
+				complete = previous.isComplete();
+				break;
+			}
+		}
+
+		tokens.setComplete(complete);
+		tokens.setLookahead(Math.max(previous.getLookahead(), tokenizer.getMaxLookahead()));
+		return tokens;
+	}
+
+	/**
+	 * Finds the first token ending at or after {@code offset}.
+	 *
+	 * @param tokens tokens to search.
+	 * @param offset offset to search.
+	 * @return the index of the token, {@code tokens.size()} if none.
+	 *
+	 * @since 0.3
+	 */
+	private static int firstEndingAtOrAfter(TokenBuffer tokens, int offset) {
+		var low = 0;
+		var high = tokens.size();
+
+		while(low < high) {
+			var middle = (low + high) >>> 1;
+			if(tokens.getEnd(middle) < offset) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Adds the tokens of {@code previous} from {@code from} to {@code tokens}, shifted after an edit. The last token of
+	 * {@code tokens} must be the one preceding {@code from} in {@code previous}, read again: lines are shifted as much
+	 * as its own, and so are the columns of the tokens on its line.
+	 *
+	 * @param previous tokens before the edit.
+	 * @param from index of the first token to add.
+	 * @param tokens tokens after the edit.
+	 * @param delta count of code-points added by the edit, negative if some have been removed.
+	 *
+	 * @since 0.3
+	 */
+	private static void shift(TokenBuffer previous, int from, TokenBuffer tokens, int delta) {
+		var last = tokens.size() - 1;
+		var oldLine = previous.getLine(from - 1);
+		var lineDelta = tokens.getLine(last) - oldLine;
+		var columnDelta = tokens.getColumn(last) - previous.getColumn(from - 1);
+
+		for(int i = from; i < previous.size(); i++) {
+			var line = previous.getLine(i);
+			var column = previous.getColumn(i) + (line == oldLine ? columnDelta : 0);
+
+			tokens.add(previous.getTypeId(i), previous.getStart(i) + delta, previous.getEnd(i) + delta,
+					line + lineDelta, column);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Sorted table of the offsets at which the lines of a source start, used to compute the line and column of a
+ * code-point from its offset only when they are needed.<br><br>
+ *
+ * Offsets count code-points from the start of the source. A line starts after the last code-point of a line break,
+ * which is either {@code "\r\n"}, {@code "\r"} or {@code "\n"}, and the first line starts at offset {@code 0}. The
+ * line of an offset is the count of line starts up to it, and its column is {@code offset - lineStart + 1}, which is
+ * consistent with the positions computed by a {@link Tokenizer} for any code-point outside of a line break.<br><br>
+ *
+ * A {@code LineIndex} is filled by its {@link Tokenizer} while it reads the source: it must not be shared with other
+ * threads until the source has been read entirely.
+ *
+ * @since 0.3
+ *
+ * @see Tokenizer#setLazyPositions(boolean)
+ */
+public final class LineIndex {
+	/**
+	 * Offsets at which the lines following the first one start. Only the first {@link #count} ones are meaningful.
+	 *
+	 * @since 0.3
+	 */
+	private int[] starts = new int[64];
+
+	/**
+	 * Count of meaningful offsets in {@link #starts}.
+	 *
+	 * @since 0.3
+	 */
+	private int count;
+
+	/**
+	 * Last code-point given to {@link #scan}, {@code -1} if none.
+	 *
+	 * @since 0.3
+	 */
+	private int last = -1;
+
+	/**
+	 * Creates a new {@code LineIndex} of a source which has not been read yet.
+	 *
+	 * @since 0.3
+	 */
+	LineIndex() {}
+
+	/**
+	 * Records the line breaks of a block of the source, which follows the previously scanned ones.
+	 *
+	 * @param chars array containing the block.
+	 * @param from position of the block in {@code chars}.
+	 * @param to position following the block in {@code chars}.
+	 * @param offset offset in the source of the code-point at {@code from}.
+	 *
+	 * @since 0.3
+	 */
+	void scan(char[] chars, int from, int to, int offset) {
+		var previous = last;
+
+		for(int i = from; i < to; i++) {
+			var c = chars[i];
+
+			if(c == '\n' && previous == '\r') {
+				// the line started after the '\r' actually starts after the '\n'.
+				starts[count - 1]++;
+			} else if(c == '\n' || c == '\r') {
+				if(count == starts.length) starts = Arrays.copyOf(starts, count * 2);
+				starts[count++] = offset + i - from + 1;
+			}
+			previous = c;
+		}
+
+		if(to > from) last = previous;
+	}
+
+	/**
+	 * Gets the line of a code-point.
+	 *
+	 * @param offset offset of the code-point.
+	 * @return the line of the code-point, starting at {@code 1}.
+	 *
+	 * @since 0.3
+	 */
+	public int getLine(int offset) {
+		// count of line starts up to offset.
+		var pos = Arrays.binarySearch(starts, 0, count, offset);
+		return (pos >= 0 ? pos + 1 : -pos - 1) + 1;
+	}
+
+	/**
+	 * Gets the column of a code-point.
+	 *
+	 * @param offset offset of the code-point.
+	 * @return the column of the code-point, starting at {@code 1}.
+	 *
+	 * @since 0.3
+	 */
+	public int getColumn(int offset) {
+		return offset - getLineStart(getLine(offset)) + 1;
+	}
+
+	/**
+	 * Gets the offset at which a line starts.
+	 *
+	 * @param line line, starting at {@code 1}.
+	 * @return the offset of the first code-point of the line.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code line} is not between {@code 1} and {@link #getLineCount()}.
+	 *
+	 * @since 0.3
+	 */
+	public int getLineStart(int line) {
+		if(line == 1) return 0;
+		return starts[Objects.checkIndex(line - 2, count)];
+	}
+
+	/**
+	 * Gets the count of lines read so far.
+	 *
+	 * @return the count of lines.
+	 *
+	 * @since 0.3
+	 */
+	public int getLineCount() {
+		return count + 1;
+	}
+}
@@ -0,0 +1,227 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Source of a {@link Tokenizer} decoding a UTF-8 file straight from memory-mapped regions, so its content is neither
+ * copied to the heap nor decoded all at once.<br><br>
+ *
+ * The file is mapped one region at a time, as a single mapping cannot exceed 2GB. A code-point whose bytes straddle the
+ * end of a region is decoded again from the start of the next region, which begins with its first byte.<br><br>
+ *
+ * ASCII bytes, which are their own code-point in UTF-8, are copied as they are. Only runs of bytes outside of the
+ * ASCII range go through a {@link CharsetDecoder}, so mostly ASCII files are barely decoded at all.
+ *
+ * @since 0.3
+ */
+final class MappedSource {
+	/**
+	 * Default maximum size of a mapped region, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	static final long DEFAULT_REGION_SIZE = 1 << 30;
+
+	/**
+	 * Path of the mapped file.
+	 *
+	 * @since 0.3
+	 */
+	private final Path path;
+
+	/**
+	 * Size of the mapped file, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	private final long size;
+
+	/**
+	 * Maximum size of a mapped region, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	private final long regionSize;
+
+	/**
+	 * Decoder of the file content.
+	 *
+	 * @since 0.3
+	 */
+	private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+			.onMalformedInput(CodingErrorAction.REPORT)
+			.onUnmappableCharacter(CodingErrorAction.REPORT);
+
+	/**
+	 * Position in the file of the first byte of {@link #region}.
+	 *
+	 * @since 0.3
+	 */
+	private long regionStart;
+
+	/**
+	 * Region of the file currently decoded.
+	 *
+	 * @since 0.3
+	 */
+	private ByteBuffer region;
+
+	/**
+	 * Creates a new {@code MappedSource} mapping regions of {@link #DEFAULT_REGION_SIZE} bytes.
+	 *
+	 * @param path path of the file to map.
+	 *
+	 * @throws IOException if the file cannot be mapped.
+	 *
+	 * @since 0.3
+	 */
+	MappedSource(Path path) throws IOException {
+		this(path, DEFAULT_REGION_SIZE);
+	}
+
+	/**
+	 * Creates a new {@code MappedSource}.
+	 *
+	 * @param path path of the file to map.
+	 * @param regionSize maximum size of a mapped region, at least 4 bytes so any code-point fits in it.
+	 *
+	 * @throws IOException if the file cannot be mapped.
+	 *
+	 * @since 0.3
+	 */
+	MappedSource(Path path, long regionSize) throws IOException {
+		this.path = path;
+		this.size = Files.size(path);
+		this.regionSize = regionSize;
+		map(0);
+	}
+
+	/**
+	 * Gets the size of the mapped file, which is at least its count of code-points.
+	 *
+	 * @return the size of the file, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	long getSize() {
+		return size;
+	}
+
+	/**
+	 * Decodes code-points of the file, starting where the previous call stopped.
+	 *
+	 * @param dst array to decode code-points into.
+	 * @param off position in {@code dst} of the first decoded code-point.
+	 * @param len maximum count of code-points to decode, at least 2 so a surrogate pair fits in it.
+	 * @return the count of decoded code-points, {@code -1} if the end of the file has been reached.
+	 *
+	 * @throws IOException if the file is not valid UTF-8, or if the next region cannot be mapped.
+	 *
+	 * @since 0.3
+	 */
+	int read(char[] dst, int off, int len) throws IOException {
+		var count = 0;
+
+		while(count < len) {
+			if(!region.hasRemaining()) {
+				if(isLastRegion()) break;
+				map(regionStart + region.position());
+				continue;
+			}
+
+			var position = region.position();
+			var end = region.limit();
+
+			if(region.get(position) >= 0) {
+				// ASCII bytes are their own code-point.
+				var max = Math.min(end, position + len - count);
+				byte b;
+				while(position < max && (b = region.get(position)) >= 0) {
+					dst[off + count++] = (char) b;
+					position++;
+				}
+				region.position(position);
+				continue;
+			}
+
+			// continuation bytes are never ASCII, so a run of non-ASCII bytes only holds whole code-points, but the
+			// ones straddling the end of the region.
+			var runEnd = position;
+			while(runEnd < end && region.get(runEnd) < 0) runEnd++;
+
+			var in = region.duplicate().limit(runEnd);
+			var out = CharBuffer.wrap(dst, off + count, len - count);
+
+			decoder.reset();
+			var result = decoder.decode(in, out, runEnd < end || isLastRegion());
+			region.position(in.position());
+			count = out.position() - off;
+
+			if(result.isError()) {
+				// code-points decoded before an error are returned first, the error is reported by the next call.
+				if(count > 0) break;
+				result.throwException();
+			}
+			if(result.isOverflow()) break;
+			if(in.hasRemaining()) map(regionStart + region.position());
+		}
+
+		return count == 0 && len > 0 ? -1 : count;
+	}
+
+	/**
+	 * Checks if {@link #region} ends at the end of the file.
+	 *
+	 * @return {@code true} if no region follows the current one, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	private boolean isLastRegion() {
+		return regionStart + region.limit() == size;
+	}
+
+	/**
+	 * Maps the region of the file starting at {@code position}.
+	 *
+	 * @param position position in the file of the first byte of the region.
+	 *
+	 * @throws IOException if the region cannot be mapped.
+	 *
+	 * @since 0.3
+	 */
+	private void map(long position) throws IOException {
+		// a mapping remains valid after its channel is closed.
+		try(var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			region = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(regionSize, size - position));
+			regionStart = position;
+		}
+	}
+}
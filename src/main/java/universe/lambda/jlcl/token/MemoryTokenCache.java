@@ -0,0 +1,445 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.LanguageDefinition;
+
+import java.io.CharArrayReader;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded in-memory cache of the tokens of texts, keyed by the {@link LanguageDefinition}, the name of the source and
+ * the content of the text. Reading the tokens of a text which has already been read only looks up its
+ * {@link TokenBuffer}, whose public methods never modify it, so it can be shared.<br><br>
+ *
+ * The cache is split into segments, each with its own lock and a share of the maximum weight, so threads reading
+ * different texts seldom wait for each other. Each segment evicts its least recently used entries once their weight,
+ * an estimate of their size in memory, exceeds its share. Texts are read outside of the locks: a text read by several
+ * threads at once may be read more than once.<br><br>
+ *
+ * Only complete results are stored: errors are logged each time a text is read. A {@code MemoryTokenCache} is
+ * thread-safe.
+ *
+ * @since 0.3
+ *
+ * @see TokenCache
+ */
+public final class MemoryTokenCache {
+	/**
+	 * Default count of segments.
+	 *
+	 * @since 0.3
+	 */
+	public static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+	/**
+	 * Estimated weight of an entry besides its content and tokens, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	private static final int ENTRY_OVERHEAD = 160;
+
+	/**
+	 * Segments of the cache. Their count is a power of two.
+	 *
+	 * @since 0.3
+	 */
+	private final Segment[] segments;
+
+	/**
+	 * Maximum weight of the entries, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	private final long maxWeight;
+
+	/**
+	 * Count of reads which found an entry.
+	 *
+	 * @since 0.3
+	 */
+	private final LongAdder hits = new LongAdder();
+
+	/**
+	 * Count of reads which found no entry.
+	 *
+	 * @since 0.3
+	 */
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Count of evicted entries.
+	 *
+	 * @since 0.3
+	 */
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * Creates a new {@code MemoryTokenCache} with {@link #DEFAULT_CONCURRENCY_LEVEL} segments.
+	 *
+	 * @param maxWeight maximum weight of the entries, an estimate of their size in memory, in bytes.
+	 *
+	 * @throws IllegalArgumentException if {@code maxWeight} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	public MemoryTokenCache(long maxWeight) {
+		this(maxWeight, DEFAULT_CONCURRENCY_LEVEL);
+	}
+
+	/**
+	 * Creates a new {@code MemoryTokenCache}.
+	 *
+	 * @param maxWeight maximum weight of the entries, an estimate of their size in memory, in bytes.
+	 * @param concurrencyLevel expected count of threads reading at once, rounded up to a power of two to get the count
+	 * of segments.
+	 *
+	 * @throws IllegalArgumentException if {@code maxWeight} or {@code concurrencyLevel} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	public MemoryTokenCache(long maxWeight, int concurrencyLevel) {
+		if(maxWeight <= 0) throw new IllegalArgumentException("Maximum weight must be positive: " + maxWeight);
+		if(concurrencyLevel <= 0) {
+			throw new IllegalArgumentException("Concurrency level must be positive: " + concurrencyLevel);
+		}
+
+		var count = Integer.highestOneBit(Math.min(concurrencyLevel, 1 << 16) * 2 - 1);
+		this.maxWeight = maxWeight;
+		this.segments = new Segment[count];
+		for(int i = 0; i < count; i++) {
+			// the remainder of the division is given to the first segments.
+			segments[i] = new Segment(maxWeight / count + (i < maxWeight % count ? 1 : 0));
+		}
+	}
+
+	/**
+	 * Reads the tokens of a text, from its entry if it has one, or with a {@link Tokenizer} otherwise.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param text text to read.
+	 * @param sourceName name of the source of the text.
+	 * @return the tokens of the text.
+	 *
+	 * @since 0.3
+	 */
+	public TokenBuffer tokenize(LanguageDefinition definition, CharSequence text, String sourceName) {
+		var chars = new char[text.length()];
+		for(int i = 0; i < chars.length; i++) chars[i] = text.charAt(i);
+
+		var key = new Key(definition, sourceName, chars, chars.length);
+		var segment = segments[key.hash & (segments.length - 1)];
+
+		var cached = segment.get(key);
+		if(cached != null) {
+			hits.increment();
+			return cached;
+		}
+		misses.increment();
+
+		var tokens = new Tokenizer(definition, new CharArrayReader(chars), sourceName,
+				Tokenizer.windowSize(chars.length, Tokenizer.DEFAULT_WINDOW_SIZE)).readTokenBuffer();
+		if(tokens.isComplete()) {
+			// the key refers to the content of the tokens, so the read text is not retained twice.
+			segment.put(new Key(definition, sourceName, tokens.getContent(), tokens.getContentLength()), tokens);
+		}
+		return tokens;
+	}
+
+	/**
+	 * Removes all entries. They are not counted as evictions.
+	 *
+	 * @since 0.3
+	 */
+	public void clear() {
+		for(var segment : segments) segment.clear();
+	}
+
+	/**
+	 * Gets the count of entries.
+	 *
+	 * @return the count of entries.
+	 *
+	 * @since 0.3
+	 */
+	public int size() {
+		var size = 0;
+		for(var segment : segments) size += segment.size();
+		return size;
+	}
+
+	/**
+	 * Gets the weight of the entries: an estimate of their size in memory.
+	 *
+	 * @return the weight of the entries, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	public long getWeight() {
+		var weight = 0L;
+		for(var segment : segments) weight += segment.getWeight();
+		return weight;
+	}
+
+	/**
+	 * Gets the maximum weight of the entries.
+	 *
+	 * @return the maximum weight of the entries, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	public long getMaxWeight() {
+		return maxWeight;
+	}
+
+	/**
+	 * Gets the count of reads which found an entry.
+	 *
+	 * @return the count of hits.
+	 *
+	 * @since 0.3
+	 */
+	public long getHitCount() {
+		return hits.sum();
+	}
+
+	/**
+	 * Gets the count of reads which found no entry.
+	 *
+	 * @return the count of misses.
+	 *
+	 * @since 0.3
+	 */
+	public long getMissCount() {
+		return misses.sum();
+	}
+
+	/**
+	 * Gets the count of entries evicted to respect the maximum weight.
+	 *
+	 * @return the count of evictions.
+	 *
+	 * @since 0.3
+	 */
+	public long getEvictionCount() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Estimates the size in memory of an entry.
+	 *
+	 * @param tokens tokens of the entry.
+	 * @return the weight of the entry, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	private static long weigh(TokenBuffer tokens) {
+		// five ints per token: type, start, end, line and column.
+		return ENTRY_OVERHEAD + tokens.getContent().length * 2L + tokens.size() * 20L;
+	}
+
+	/**
+	 * Key of an entry.
+	 *
+	 * @since 0.3
+	 */
+	private static final class Key {
+		/**
+		 * The {@link LanguageDefinition} used to read the tokens, compared by identity.
+		 *
+		 * @since 0.3
+		 */
+		private final LanguageDefinition definition;
+
+		/**
+		 * Name of the source of the text.
+		 *
+		 * @since 0.3
+		 */
+		private final String sourceName;
+
+		/**
+		 * Array holding the text.
+		 *
+		 * @since 0.3
+		 */
+		private final char[] text;
+
+		/**
+		 * Length of the text in {@link #text}.
+		 *
+		 * @since 0.3
+		 */
+		private final int length;
+
+		/**
+		 * Hash code of the key, spread over all bits.
+		 *
+		 * @since 0.3
+		 */
+		private final int hash;
+
+		/**
+		 * Creates a new {@code Key}.
+		 *
+		 * @param definition definition used to read the tokens.
+		 * @param sourceName name of the source of the text.
+		 * @param text array holding the text.
+		 * @param length length of the text.
+		 *
+		 * @since 0.3
+		 */
+		private Key(LanguageDefinition definition, String sourceName, char[] text, int length) {
+			this.definition = definition;
+			this.sourceName = sourceName;
+			this.text = text;
+			this.length = length;
+
+			var h = System.identityHashCode(definition) * 31 + (sourceName == null ? 0 : sourceName.hashCode());
+			for(int i = 0; i < length; i++) h = h * 31 + text[i];
+			this.hash = h ^ (h >>> 16);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) return true;
+			if(!(o instanceof Key)) return false;
+
+			var other = (Key) o;
+			return hash == other.hash && definition == other.definition && length == other.length
+					&& (sourceName == null ? other.sourceName == null : sourceName.equals(other.sourceName))
+					&& Arrays.equals(text, 0, length, other.text, 0, other.length);
+		}
+	}
+
+	/**
+	 * Segment of the cache, evicting its least recently used entries. All its methods hold its lock.
+	 *
+	 * @since 0.3
+	 */
+	private final class Segment {
+		/**
+		 * Entries, from the least recently used one.
+		 *
+		 * @since 0.3
+		 */
+		private final LinkedHashMap<Key, TokenBuffer> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+		/**
+		 * Maximum weight of the entries of this segment.
+		 *
+		 * @since 0.3
+		 */
+		private final long maxWeight;
+
+		/**
+		 * Weight of the entries of this segment.
+		 *
+		 * @since 0.3
+		 */
+		private long weight;
+
+		/**
+		 * Creates a new {@code Segment}.
+		 *
+		 * @param maxWeight maximum weight of the entries of the segment.
+		 *
+		 * @since 0.3
+		 */
+		private Segment(long maxWeight) {
+			this.maxWeight = maxWeight;
+		}
+
+		/**
+		 * Gets the tokens of an entry, marking it as the most recently used one.
+		 *
+		 * @param key key of the entry.
+		 * @return the tokens, {@code null} if there is no entry.
+		 *
+		 * @since 0.3
+		 */
+		private synchronized TokenBuffer get(Key key) {
+			return entries.get(key);
+		}
+
+		/**
+		 * Adds an entry, then evicts the least recently used ones while they exceed the maximum weight. An entry heavier
+		 * than the maximum weight is not added.
+		 *
+		 * @param key key of the entry.
+		 * @param tokens tokens of the entry.
+		 *
+		 * @since 0.3
+		 */
+		private synchronized void put(Key key, TokenBuffer tokens) {
+			var added = weigh(tokens);
+			if(added > maxWeight) return;
+
+			var replaced = entries.put(key, tokens);
+			weight += added - (replaced == null ? 0 : weigh(replaced));
+
+			var iterator = entries.values().iterator();
+			while(weight > maxWeight) {
+				weight -= weigh(iterator.next());
+				iterator.remove();
+				evictions.increment();
+			}
+		}
+
+		/**
+		 * Removes all entries.
+		 *
+		 * @since 0.3
+		 */
+		private synchronized void clear() {
+			entries.clear();
+			weight = 0;
+		}
+
+		/**
+		 * Gets the count of entries.
+		 *
+		 * @return the count of entries.
+		 *
+		 * @since 0.3
+		 */
+		private synchronized int size() {
+			return entries.size();
+		}
+
+		/**
+		 * Gets the weight of the entries.
+		 *
+		 * @return the weight of the entries, in bytes.
+		 *
+		 * @since 0.3
+		 */
+		private synchronized long getWeight() {
+			return weight;
+		}
+	}
+}
@@ -0,0 +1,420 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.LanguageDefinition;
+import universe.lambda.jlcl.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads the tokens of a single large source in parallel, into a {@link TokenBuffer} equal to the one a
+ * {@link Tokenizer} would read sequentially.<br><br>
+ *
+ * The source is held in memory and split into chunks, preferably after a line break. Lines are first counted in each
+ * chunk in parallel, so each chunk knows the line and column it starts at. Chunks are then read in parallel on a
+ * {@link ForkJoinPool}, each by its own {@code Tokenizer}, from its start until a token starts in the next chunk. As
+ * a chunk may start inside a token, a string or a comment, these reads are speculative: their errors are not logged,
+ * and they are reconciled in order afterwards.<br><br>
+ *
+ * Between tokens, a {@code Tokenizer} has no other state than its position, so once the reading of the previous
+ * chunks reaches a token start of the next chunk, the remaining tokens of the chunk are the ones a sequential read
+ * would give. Until it does, the previous {@code Tokenizer} keeps reading: a chunk started at a bad boundary is read
+ * again sequentially, never wrongly.<br><br>
+ *
+ * As the whole source is held in a single {@code char} array, which the returned {@code TokenBuffer} keeps, reading it
+ * takes two bytes per code-point on the heap: a UTF-8 file takes up to twice its size, on top of its tokens. Offsets
+ * are {@code int}s, so a file can be read only if it has at most {@code Integer.MAX_VALUE - 2} bytes, about 2GB, and
+ * the heap can hold the array. Larger sources are read sequentially, for instance by {@link Tokenizer#open(Path)}
+ * into a {@link TokenSink}, which decodes one mapped region at a time and does not hold the source.
+ *
+ * @since 0.3
+ */
+public final class ParallelTokenizer {
+	/**
+	 * Default count of code-points per chunk.
+	 *
+	 * @since 0.3
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 1 << 18;
+
+	/**
+	 * Count of code-points following the nominal end of a chunk in which a line break is looked for.
+	 *
+	 * @since 0.3
+	 */
+	private static final int BOUNDARY_SEARCH = 4096;
+
+	/**
+	 * Static-access-only class, so no instance :)
+	 */
+	private ParallelTokenizer() {}
+
+	/**
+	 * Reads the tokens of {@code source} in parallel on the common {@link ForkJoinPool}, in chunks of
+	 * {@link #DEFAULT_CHUNK_SIZE} code-points.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param source content of the source. It is copied.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @return the read tokens, up to the end of the source or to the first error.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenBuffer#isComplete()
+	 */
+	public static TokenBuffer tokenize(LanguageDefinition definition, CharSequence source, String sourceName) {
+		return tokenize(definition, source, sourceName, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Reads the tokens of {@code source} in parallel.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param source content of the source. It is copied.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @param pool pool on which chunks are read.
+	 * @param chunkSize nominal count of code-points per chunk.
+	 * @return the read tokens, up to the end of the source or to the first error.
+	 *
+	 * @throws IllegalArgumentException if {@code chunkSize} is not positive.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenBuffer#isComplete()
+	 */
+	public static TokenBuffer tokenize(LanguageDefinition definition, CharSequence source, String sourceName,
+			ForkJoinPool pool, int chunkSize) {
+		var text = new char[source.length()];
+		for(int i = 0; i < text.length; i++) {
+			text[i] = source.charAt(i);
+		}
+		return tokenize(definition, text, text.length, sourceName, pool, chunkSize);
+	}
+
+	/**
+	 * Reads the tokens of the UTF-8 file at {@code path} in parallel on the common {@link ForkJoinPool}, in chunks of
+	 * {@link #DEFAULT_CHUNK_SIZE} code-points. The file is decoded in memory through memory mapping first, so it must
+	 * have at most {@code Integer.MAX_VALUE - 2} bytes.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param path path of the file to read. It is also the name of the source.
+	 * @return the read tokens, up to the end of the file or to the first error.
+	 *
+	 * @throws IOException if the file cannot be read, is not valid UTF-8, or has more than
+	 * {@code Integer.MAX_VALUE - 2} bytes.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenBuffer#isComplete()
+	 */
+	public static TokenBuffer tokenize(LanguageDefinition definition, Path path) throws IOException {
+		return tokenize(definition, path, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Reads the tokens of the UTF-8 file at {@code path} in parallel. The file is decoded in memory through memory
+	 * mapping first, into an array of as many {@code char}s as the file has bytes, so it must have at most
+	 * {@code Integer.MAX_VALUE - 2} bytes.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param path path of the file to read. It is also the name of the source.
+	 * @param pool pool on which chunks are read.
+	 * @param chunkSize nominal count of code-points per chunk.
+	 * @return the read tokens, up to the end of the file or to the first error.
+	 *
+	 * @throws IOException if the file cannot be read, is not valid UTF-8, or has more than
+	 * {@code Integer.MAX_VALUE - 2} bytes.
+	 * @throws IllegalArgumentException if {@code chunkSize} is not positive.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenBuffer#isComplete()
+	 */
+	public static TokenBuffer tokenize(LanguageDefinition definition, Path path, ForkJoinPool pool, int chunkSize)
+			throws IOException {
+		var size = Files.size(path);
+		if(size > Integer.MAX_VALUE - 2) {
+			throw new IOException("File too large to be held in memory, read it with Tokenizer.open: " + path);
+		}
+
+		// UTF-8 never decodes to more code-points than bytes.
+		var text = new char[(int) size + 2];
+		var length = 0;
+		var mapped = new MappedSource(path);
+		int count;
+
+		while((count = mapped.read(text, length, text.length - length)) > 0) {
+			length += count;
+		}
+		return tokenize(definition, text, length, path.toString(), pool, chunkSize);
+	}
+
+	/**
+	 * Reads the tokens of {@code text} in parallel.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param text content of the source, owned by the returned {@link TokenBuffer}.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param sourceName name of the source.
+	 * @param pool pool on which chunks are read.
+	 * @param chunkSize nominal count of code-points per chunk.
+	 * @return the read tokens.
+	 *
+	 * @throws IllegalArgumentException if {@code chunkSize} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	private static TokenBuffer tokenize(LanguageDefinition definition, char[] text, int length, String sourceName,
+			ForkJoinPool pool, int chunkSize) {
+		if(chunkSize <= 0) throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+
+		var chunks = split(text, length, chunkSize);
+		var tasks = new ArrayList<ForkJoinTask<?>>(chunks.length);
+
+		for(var chunk : chunks) {
+			tasks.add(pool.submit(() -> chunk.countLines(text)));
+		}
+		for(var task : tasks) {
+			task.join();
+		}
+
+		var line = 1;
+		var lineStart = 0;
+		for(var chunk : chunks) {
+			chunk.line = line;
+			chunk.column = chunk.start - lineStart;
+			line += chunk.breakCount;
+			if(chunk.lastBreak >= 0) lineStart = chunk.lastBreak + 1;
+		}
+
+		tasks.clear();
+		for(var chunk : chunks) {
+			tasks.add(pool.submit(() -> chunk.read(definition, text, length, sourceName)));
+		}
+		for(var task : tasks) {
+			task.join();
+		}
+
+		return reconcile(definition, text, length, sourceName, chunks);
+	}
+
+	/**
+	 * Splits the source into chunks. A chunk ends after the first line break following its nominal end, if one is
+	 * close enough, and never between {@code '\r'} and {@code '\n'}.
+	 *
+	 * @param text content of the source.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param chunkSize nominal count of code-points per chunk.
+	 * @return the chunks, in order. There is at least one.
+	 *
+	 * @since 0.3
+	 */
+	private static Chunk[] split(char[] text, int length, int chunkSize) {
+		var chunks = new ArrayList<Chunk>();
+		var start = 0;
+
+		do {
+			var end = (int) Math.min((long) start + chunkSize, length);
+			var searchEnd = (int) Math.min((long) end + BOUNDARY_SEARCH, length);
+
+			for(int i = end; i < searchEnd; i++) {
+				if(text[i] == '\n' || text[i] == '\r') {
+					end = i + 1;
+					break;
+				}
+			}
+			if(end < length && text[end - 1] == '\r' && text[end] == '\n') end++;
+
+			chunks.add(new Chunk(start, end));
+			start = end;
+		} while(start < length);
+
+		return chunks.toArray(new Chunk[0]);
+	}
+
+	/**
+	 * Concatenates the tokens of the chunks, reading again sequentially where a chunk has been read from a bad
+	 * boundary.
+	 *
+	 * @param definition definition of the language the tokens have been read for.
+	 * @param text content of the source.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param sourceName name of the source.
+	 * @param chunks chunks, in order, all read.
+	 * @return the tokens of the source.
+	 *
+	 * @since 0.3
+	 */
+	private static TokenBuffer reconcile(LanguageDefinition definition, char[] text, int length, String sourceName,
+			Chunk[] chunks) {
+		var tokens = new TokenBuffer(definition, sourceName, text, length);
+		// the first chunk starts at a token boundary, so its tokenizer reads the source as a sequential one would.
+		var tokenizer = chunks[0].tokenizer;
+		tokens.addAll(chunks[0].tokens, 0, chunks[0].tokens.size());
+
+		for(int k = 1; k < chunks.length && !tokenizer.isAtEnd() && !tokenizer.hasFailed(); k++) {
+			var chunk = chunks[k];
+			var stop = k + 1 < chunks.length ? chunks[k + 1].start : Integer.MAX_VALUE;
+
+			while(true) {
+				var offset = tokenizer.peekOffset();
+				var index = chunk.tokens.indexOfStart(offset);
+
+				if(index >= 0 || offset == chunk.end) {
+					// from a common token start, both tokenizers read the same tokens.
+					if(index >= 0) tokens.addAll(chunk.tokens, index, chunk.tokens.size());
+					tokenizer = chunk.tokenizer;
+					break;
+				}
+				if(offset >= stop || !tokenizer.readNext(tokens, stop)) break;
+			}
+		}
+
+		tokens.setComplete(tokenizer.isAtEnd() && !tokenizer.hasFailed());
+		var lookahead = 0;
+		for(var chunk : chunks) {
+			lookahead = Math.max(lookahead, chunk.tokenizer.getMaxLookahead());
+		}
+		tokens.setLookahead(lookahead);
+		if(tokenizer.getDeferredError() != null) Logger.error(tokenizer.getDeferredError());
+		return tokens;
+	}
+
+	/**
+	 * Chunk of the source, read speculatively.
+	 *
+	 * @since 0.3
+	 */
+	private static final class Chunk {
+		/**
+		 * Offset of the first code-point of the chunk.
+		 *
+		 * @since 0.3
+		 */
+		private final int start;
+
+		/**
+		 * Offset following the last code-point of the chunk, before reading. After reading, offset at which the
+		 * {@link #tokenizer} stopped: the start of the first token of the next chunk, of the token which could not be
+		 * read, or the end of the source.
+		 *
+		 * @since 0.3
+		 */
+		private int end;
+
+		/**
+		 * Count of line breaks in the chunk.
+		 *
+		 * @since 0.3
+		 */
+		private int breakCount;
+
+		/**
+		 * Offset of the last line break in the chunk, {@code -1} if none.
+		 *
+		 * @since 0.3
+		 */
+		private int lastBreak = -1;
+
+		/**
+		 * Line of the code-point preceding the chunk.
+		 *
+		 * @since 0.3
+		 */
+		private int line;
+
+		/**
+		 * Column of the code-point preceding the chunk.
+		 *
+		 * @since 0.3
+		 */
+		private int column;
+
+		/**
+		 * {@link Tokenizer} which read the chunk, stopped after it.
+		 *
+		 * @since 0.3
+		 */
+		private Tokenizer tokenizer;
+
+		/**
+		 * Tokens read in the chunk.
+		 *
+		 * @since 0.3
+		 */
+		private TokenBuffer tokens;
+
+		/**
+		 * Creates a new {@code Chunk}.
+		 *
+		 * @param start offset of the first code-point of the chunk.
+		 * @param end offset following the last code-point of the chunk.
+		 *
+		 * @since 0.3
+		 */
+		private Chunk(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		/**
+		 * Counts the line breaks of the chunk, the same way a {@link Tokenizer} does.
+		 *
+		 * @param text content of the source.
+		 *
+		 * @since 0.3
+		 */
+		private void countLines(char[] text) {
+			for(int i = start; i < end; i++) {
+				var c = text[i];
+				if(c == '\r' || (c == '\n' && (i == 0 || text[i - 1] != '\r'))) breakCount++;
+				if(c == '\r' || c == '\n') lastBreak = i;
+			}
+		}
+
+		/**
+		 * Reads the tokens starting in the chunk, from its start.
+		 *
+		 * @param definition definition of the language to read tokens for.
+		 * @param text content of the source.
+		 * @param length count of code-points of the source in {@code text}.
+		 * @param sourceName name of the source.
+		 *
+		 * @since 0.3
+		 */
+		private void read(LanguageDefinition definition, char[] text, int length, String sourceName) {
+			tokenizer = new Tokenizer(definition, text, length, start, line, column, sourceName);
+			tokens = new TokenBuffer(definition, sourceName, text, length);
+
+			// the last chunk is read up to the end of the source.
+			var stop = end < length ? end : Integer.MAX_VALUE;
+			while(tokenizer.readNext(tokens, stop)) {
+				// tokens are added to the buffer.
+			}
+			end = tokenizer.getTokenStart();
+		}
+	}
+}
@@ -0,0 +1,411 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.LanguageDefinition;
+import universe.lambda.jlcl.Logger;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Non-blocking counterpart of {@link Tokenizer}: the source is fed in chunks as they become available, and every
+ * token known to be complete is passed to a {@link TokenSink}. It suits sources read asynchronously, such as network
+ * connections, without a thread blocked on a {@link java.io.Reader}.<br><br>
+ *
+ * Fed code-points are kept until the tokens they belong to are complete. A token which reaches the last code-point
+ * fed so far, such as a half-read string, may still continue: it is read again once more code-points have been fed,
+ * when there are twice as many, so each code-point is read a bounded count of times on average. {@link #flush()}
+ * marks the end of the source, completing the last token.<br><br>
+ *
+ * Like the {@code Tokenizer}, it stops at the first error, which is logged. As the offsets passed to the sink are
+ * {@code int}s, a source longer than {@code Integer.MAX_VALUE} code-points fails once a token starts past that offset.
+ * A {@code PushTokenizer} is not thread-safe.
+ *
+ * @since 0.3
+ */
+public final class PushTokenizer {
+	/**
+	 * The {@link LanguageDefinition} used to read tokens.
+	 *
+	 * @since 0.3
+	 */
+	private final LanguageDefinition definition;
+
+	/**
+	 * Name of the source, used in logs.
+	 *
+	 * @since 0.3
+	 */
+	private final String sourceName;
+
+	/**
+	 * Receiver of the complete tokens.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenSink sink;
+
+	/**
+	 * Receiver of the tokens of {@link #tokenizer}, passing the complete ones to {@link #sink}.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenSink gate = this::receive;
+
+	/**
+	 * Code-points fed and not consumed yet, from the start of the last token passed to {@link #sink}.
+	 *
+	 * @since 0.3
+	 */
+	private char[] pending = new char[Tokenizer.DEFAULT_WINDOW_SIZE];
+
+	/**
+	 * Count of code-points in {@link #pending}.
+	 *
+	 * @since 0.3
+	 */
+	private int pendingLength;
+
+	/**
+	 * Offset from the start of the source of the first code-point of {@link #pending}. It is a {@code long} so that
+	 * reaching the limit of the offsets passed to {@link #sink} is detected.
+	 *
+	 * @since 0.3
+	 */
+	private long pendingBase;
+
+	/**
+	 * Count of code-points {@link #pending} must hold before it is read again.
+	 *
+	 * @since 0.3
+	 */
+	private int threshold;
+
+	/**
+	 * Flag indicating whether a token has been passed to {@link #sink}.
+	 *
+	 * @since 0.3
+	 */
+	private boolean hasToken;
+
+	/**
+	 * Position in {@link #pending} of the first code-point of the last token passed to {@link #sink}.
+	 *
+	 * @since 0.3
+	 */
+	private int tokenStart;
+
+	/**
+	 * Position in {@link #pending} following the last code-point of the last token passed to {@link #sink}.
+	 *
+	 * @since 0.3
+	 */
+	private int tokenEnd;
+
+	/**
+	 * Line of the last token passed to {@link #sink}.
+	 *
+	 * @since 0.3
+	 */
+	private int tokenLine;
+
+	/**
+	 * Column of the last token passed to {@link #sink}.
+	 *
+	 * @since 0.3
+	 */
+	private int tokenColumn;
+
+	/**
+	 * The {@link Tokenizer} reading {@link #pending}, reset for each read so its matchers are reused. {@code null}
+	 * until the first read.
+	 *
+	 * @since 0.3
+	 */
+	private Tokenizer tokenizer;
+
+	/**
+	 * Flag indicating whether the end of the source has been reached.
+	 *
+	 * @since 0.3
+	 */
+	private boolean flushed;
+
+	/**
+	 * Flag indicating whether the last token read by {@link #tokenizer} may continue after the code-points fed so far.
+	 *
+	 * @since 0.3
+	 */
+	private boolean incomplete;
+
+	/**
+	 * Flag indicating whether an error happened.
+	 *
+	 * @since 0.3
+	 */
+	private boolean failed;
+
+	/**
+	 * Bytes fed and not decoded yet, ready to be written. {@code null} until bytes are fed.
+	 *
+	 * @since 0.3
+	 */
+	private ByteBuffer bytes;
+
+	/**
+	 * Decoder of the fed bytes. {@code null} until bytes are fed.
+	 *
+	 * @since 0.3
+	 */
+	private CharsetDecoder decoder;
+
+	/**
+	 * Creates a new {@code PushTokenizer}.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @param sink receiver of the tokens. The buffer it receives holds the fed code-points.
+	 *
+	 * @since 0.3
+	 */
+	public PushTokenizer(LanguageDefinition definition, String sourceName, TokenSink sink) {
+		this.definition = definition;
+		this.sourceName = sourceName;
+		this.sink = sink;
+	}
+
+	/**
+	 * Feeds code-points of the source, and passes the tokens they complete to the sink. Nothing is done after an
+	 * error.
+	 *
+	 * @param chars code-points following the ones fed so far. They are all consumed.
+	 *
+	 * @throws IllegalStateException if the source has been flushed, or if bytes fed before do not end with a complete
+	 * code-point.
+	 *
+	 * @since 0.3
+	 */
+	public void feed(CharBuffer chars) {
+		checkOpen();
+		if(failed) {
+			chars.position(chars.limit());
+			return;
+		}
+		if(bytes != null && bytes.position() > 0) throw new IllegalStateException("Incomplete UTF-8 input pending");
+
+		var count = chars.remaining();
+		ensureCapacity(count);
+		chars.get(pending, pendingLength, count);
+		pendingLength += count;
+
+		if(pendingLength >= threshold) read();
+	}
+
+	/**
+	 * Feeds UTF-8 bytes of the source, and passes the tokens they complete to the sink. A code-point split between two
+	 * calls is decoded once complete. Nothing is done after an error.
+	 *
+	 * @param input bytes following the ones fed so far. They are all consumed.
+	 *
+	 * @throws IllegalStateException if the source has been flushed.
+	 *
+	 * @since 0.3
+	 */
+	public void feed(ByteBuffer input) {
+		checkOpen();
+		if(failed) {
+			input.position(input.limit());
+			return;
+		}
+		if(bytes == null) {
+			bytes = ByteBuffer.allocate(Math.max(16, input.remaining()));
+			decoder = StandardCharsets.UTF_8.newDecoder();
+		}
+		if(bytes.remaining() < input.remaining()) {
+			var grown = ByteBuffer.allocate(bytes.position() + input.remaining());
+			bytes.flip();
+			bytes = grown.put(bytes);
+		}
+		bytes.put(input);
+
+		decode(false);
+		if(!failed && pendingLength >= threshold) read();
+	}
+
+	/**
+	 * Marks the end of the source, and passes the remaining tokens to the sink.
+	 *
+	 * @throws IllegalStateException if the source has already been flushed.
+	 *
+	 * @since 0.3
+	 */
+	public void flush() {
+		checkOpen();
+		flushed = true;
+		if(failed) return;
+
+		if(bytes != null) decode(true);
+		if(!failed) read();
+	}
+
+	/**
+	 * Checks if an error happened: unexpected character or end of source, unrecognized token, or invalid UTF-8 input.
+	 * Errors are logged when they happen.
+	 *
+	 * @return {@code true} if an error happened, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 * Checks if the end of the source has been marked by {@link #flush()}.
+	 *
+	 * @return {@code true} if the source has been flushed, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public boolean isFlushed() {
+		return flushed;
+	}
+
+	/**
+	 * Decodes the fed bytes into {@link #pending}.
+	 *
+	 * @param endOfInput whether no bytes follow.
+	 *
+	 * @since 0.3
+	 */
+	private void decode(boolean endOfInput) {
+		bytes.flip();
+		// UTF-8 never decodes to more code-points than bytes.
+		ensureCapacity(bytes.remaining());
+
+		var out = CharBuffer.wrap(pending, pendingLength, pending.length - pendingLength);
+		var result = decoder.decode(bytes, out, endOfInput);
+		if(endOfInput && !result.isError()) result = decoder.flush(out);
+		pendingLength = out.position();
+		bytes.compact();
+
+		if(result.isError() && !failed) {
+			Logger.error(sourceName + ": invalid UTF-8 input after offset " + (pendingBase + pendingLength));
+			failed = true;
+		}
+	}
+
+	/**
+	 * Reads the tokens of {@link #pending}, passes the complete ones to {@link #sink}, and discards the code-points
+	 * which are not needed anymore.
+	 *
+	 * @since 0.3
+	 */
+	private void read() {
+		if(tokenizer == null) {
+			tokenizer = new Tokenizer(definition, pending, pendingLength, 0, 1, 0, sourceName);
+		} else if(hasToken) {
+			tokenizer.resetAfter(pending, pendingLength, tokenStart, tokenEnd, tokenLine, tokenColumn);
+		} else {
+			tokenizer.reset(pending, pendingLength, 0, 1, 0);
+		}
+		incomplete = false;
+
+		do {
+			tokenizer.clearExhausted();
+		} while(tokenizer.readNext(gate) && !incomplete && !failed);
+
+		if(failed) return;
+		if(!incomplete && tokenizer.hasFailed()) {
+			if(!flushed && tokenizer.isExhausted()) {
+				// the code-points which do not form a token yet may still do.
+				incomplete = true;
+			} else {
+				Logger.error(tokenizer.getDeferredError());
+				failed = true;
+			}
+		}
+
+		// the last token is kept, so reading can resume after it.
+		var keep = hasToken ? tokenStart : 0;
+		System.arraycopy(pending, keep, pending, 0, pendingLength - keep);
+		pendingLength -= keep;
+		pendingBase += keep;
+		tokenStart -= keep;
+		tokenEnd -= keep;
+		threshold = incomplete ? pendingLength * 2 : 0;
+	}
+
+	/**
+	 * Receives a token read by {@link #tokenizer}, and passes it to {@link #sink} if it is complete.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenSink#accept
+	 */
+	private void receive(int typeId, char[] buffer, int start, int end, int offset, int line, int column) {
+		if(failed) return;
+		if(!flushed && tokenizer.isExhausted()) {
+			incomplete = true;
+			return;
+		}
+		if(pendingBase + offset > Integer.MAX_VALUE) {
+			Logger.error(sourceName + ": offset of token at " + line + ":" + column + " exceeds "
+					+ Integer.MAX_VALUE);
+			failed = true;
+			return;
+		}
+
+		hasToken = true;
+		tokenStart = offset;
+		tokenEnd = offset + end - start;
+		tokenLine = line;
+		tokenColumn = column;
+		sink.accept(typeId, buffer, start, end, (int) (pendingBase + offset), line, column);
+	}
+
+	/**
+	 * Makes room in {@link #pending} for {@code count} more code-points.
+	 *
+	 * @param count count of code-points to make room for.
+	 *
+	 * @since 0.3
+	 */
+	private void ensureCapacity(int count) {
+		if(pendingLength + count > pending.length) {
+			pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + count));
+		}
+	}
+
+	/**
+	 * Checks that the source has not been flushed.
+	 *
+	 * @throws IllegalStateException if it has.
+	 *
+	 * @since 0.3
+	 */
+	private void checkOpen() {
+		if(flushed) throw new IllegalStateException("Source already flushed");
+	}
+}
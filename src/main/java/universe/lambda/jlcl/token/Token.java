@@ -21,8 +21,14 @@ package universe.lambda.jlcl.token;
 
 import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
 
+import java.nio.CharBuffer;
+
 /**
- * Immutable object representing a token.
+ * Immutable object representing a token.<br><br>
+ *
+ * The value of a {@code Token} read by a {@link Tokenizer} may be a slice of the code-points read from the source: the
+ * {@code String} is then only created by the first call to {@link #getValue()}, and {@link #getText()} gives access to
+ * the value without creating it. Likewise, its line and column may only be computed when they are requested.
  *
  * @since 0.1
  */
@@ -35,11 +41,41 @@ public class Token {
 	private final TokenTypeDescriptor descriptor;
 
 	/**
-	 * Value of this {@code Token}.
+	 * Type id of {@link #descriptor} in the {@link universe.lambda.jlcl.LanguageDefinition} used to read this
+	 * {@code Token}, {@code -1} if unknown.
+	 *
+	 * @since 0.3
+	 */
+	private final int typeId;
+
+	/**
+	 * Value of this {@code Token}, {@code null} until it is created from {@link #chars}.
 	 *
 	 * @since 0.1
 	 */
-	private final String value;
+	private String value;
+
+	/**
+	 * Code-points containing the value of this {@code Token}, {@code null} if the value has been given as a
+	 * {@code String}. They must never be modified.
+	 *
+	 * @since 0.3
+	 */
+	private final char[] chars;
+
+	/**
+	 * Position of the value in {@link #chars}.
+	 *
+	 * @since 0.3
+	 */
+	private final int offset;
+
+	/**
+	 * Length of the value.
+	 *
+	 * @since 0.3
+	 */
+	private final int length;
 
 	/**
 	 * Source of this {@code Token} (often the filename).
@@ -62,6 +98,21 @@ public class Token {
 	 */
 	private final int col;
 
+	/**
+	 * {@link LineIndex} from which the line and the column of this {@code Token} are computed, {@code null} if they
+	 * are given by {@link #line} and {@link #col}.
+	 *
+	 * @since 0.3
+	 */
+	private final LineIndex lines;
+
+	/**
+	 * Offset of the first character of this {@code Token} from the start of its source, {@code -1} if unknown.
+	 *
+	 * @since 0.3
+	 */
+	private final int position;
+
 	/**
 	 * Creates a new {@code Token}.
 	 *
@@ -74,11 +125,54 @@ public class Token {
 	 * @since 0.1
 	 */
 	public Token(TokenTypeDescriptor descriptor, String value, String source, int line, int col) {
+		this(descriptor, -1, value, null, 0, value.length(), source, line, col, null, -1);
+	}
+
+	/**
+	 * Creates a new {@code Token} which value is either given or a slice of {@code chars}, and which position is
+	 * either given or computed from a {@link LineIndex}.
+	 *
+	 * @param descriptor corresponding {@link TokenTypeDescriptor}.
+	 * @param typeId type id of {@code descriptor}, {@code -1} if unknown.
+	 * @param value of the {@code Token}, {@code null} if it is sliced from {@code chars}.
+	 * @param chars code-points containing the value, which must never be modified afterwards.
+	 * @param offset position of the value in {@code chars}.
+	 * @param length length of the value.
+	 * @param source from which it has been read.
+	 * @param line of the first code point of this {@code Token}, ignored if {@code lines} is given.
+	 * @param col of the first code point of this {@code Token}, ignored if {@code lines} is given.
+	 * @param lines index from which the line and the column are computed, {@code null} if they are given.
+	 * @param position offset of the first code-point of this {@code Token} in its source, {@code -1} if unknown.
+	 *
+	 * @since 0.3
+	 */
+	Token(TokenTypeDescriptor descriptor, int typeId, String value, char[] chars, int offset, int length, String source,
+			int line, int col, LineIndex lines, int position) {
 		this.descriptor = descriptor;
+		this.typeId = typeId;
 		this.value = value;
+		this.chars = chars;
+		this.offset = offset;
+		this.length = length;
 		this.source = source;
 		this.line = line;
 		this.col = col;
+		this.lines = lines;
+		this.position = position;
+	}
+
+	/**
+	 * Creates a copy of a {@code Token} with a type id, as {@code Token}s made by a {@link TokenTypeDescriptor} do not
+	 * know it.
+	 *
+	 * @param token {@code Token} to copy.
+	 * @param typeId type id of the descriptor of {@code token}.
+	 *
+	 * @since 0.3
+	 */
+	Token(Token token, int typeId) {
+		this(token.descriptor, typeId, token.value, token.chars, token.offset, token.length, token.source, token.line,
+				token.col, token.lines, token.position);
 	}
 
 	/**
@@ -92,6 +186,22 @@ public class Token {
 		return descriptor;
 	}
 
+	/**
+	 * Gets the type id of the {@link TokenTypeDescriptor} of this {@code Token}: its index in the
+	 * {@link universe.lambda.jlcl.LanguageDefinition} used to read it. Type ids are dense, so they can be used in
+	 * {@code switch}es, bit sets or arrays indexed by type.
+	 *
+	 * @return the type id, {@code -1} if this {@code Token} has not been read by a {@link Tokenizer}, or is an instance
+	 * of a subclass made by its descriptor.
+	 *
+	 * @since 0.3
+	 *
+	 * @see universe.lambda.jlcl.LanguageDefinition#getTypeId(TokenTypeDescriptor)
+	 */
+	public int getTypeId() {
+		return typeId;
+	}
+
 	/**
 	 * Gets the String value of this {@code Token}.
 	 *
@@ -100,7 +210,37 @@ public class Token {
 	 * @since 0.1
 	 */
 	public String getValue() {
-		return value;
+		// creating the value twice in a race is harmless, both are equal.
+		var created = value;
+		if(created == null) {
+			created = new String(chars, offset, length);
+			value = created;
+		}
+		return created;
+	}
+
+	/**
+	 * Gets the value of this {@code Token} without creating a {@code String}, if it has not been created yet.
+	 *
+	 * @return a read-only view of the value.
+	 *
+	 * @since 0.3
+	 */
+	public CharSequence getText() {
+		var created = value;
+		if(created != null) return created;
+		return CharBuffer.wrap(chars, offset, length).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Gets the length of the value of this {@code Token}.
+	 *
+	 * @return the length of the value.
+	 *
+	 * @since 0.3
+	 */
+	public int getLength() {
+		return length;
 	}
 
 	/**
@@ -122,7 +262,7 @@ public class Token {
 	 * @since 0.1
 	 */
 	public int getLine() {
-		return line;
+		return lines == null ? line : lines.getLine(position);
 	}
 
 	/**
@@ -133,6 +273,6 @@ public class Token {
 	 * @since 0.1
 	 */
 	public int getColumn() {
-		return col;
+		return lines == null ? col : lines.getColumn(position);
 	}
 }
@@ -0,0 +1,614 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.LanguageDefinition;
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Columnar sequence of tokens read by a {@link Tokenizer}, as an alternative to an array of {@link Token}s.<br><br>
+ *
+ * The type id, start and end offsets, line and column of each token are stored in primitive arrays, and their values
+ * are slices of the source content kept by the {@code TokenBuffer}, so a token costs a few {@code int}s instead of
+ * a {@code Token} and a {@code String}. Tokens are accessed by index, from {@code 0} to {@link #size()} excluded, and
+ * {@code Token} objects are only created on demand.<br><br>
+ *
+ * Offsets count code-points from the start of the source, the end offset being excluded. Type ids are the ones of the
+ * {@link LanguageDefinition} used to read the tokens. If the {@code Tokenizer} computes positions lazily, lines and
+ * columns are not stored but computed from the start offsets with a {@link LineIndex}.<br><br>
+ *
+ * A {@code TokenBuffer} returned by a {@code Tokenizer} is never modified afterwards.
+ *
+ * @since 0.3
+ *
+ * @see Tokenizer#readTokenBuffer()
+ * @see LanguageDefinition#getTypeId(TokenTypeDescriptor)
+ */
+public final class TokenBuffer {
+	/**
+	 * The {@link LanguageDefinition} used to read the tokens.
+	 *
+	 * @since 0.3
+	 */
+	private final LanguageDefinition definition;
+
+	/**
+	 * Name of the source of the tokens.
+	 *
+	 * @since 0.3
+	 */
+	private final String source;
+
+	/**
+	 * Count of tokens.
+	 *
+	 * @since 0.3
+	 */
+	private int size;
+
+	/**
+	 * Type id of each token.
+	 *
+	 * @since 0.3
+	 */
+	private int[] types = new int[16];
+
+	/**
+	 * Offset of the first code-point of each token.
+	 *
+	 * @since 0.3
+	 */
+	private int[] starts = new int[16];
+
+	/**
+	 * Offset following the last code-point of each token.
+	 *
+	 * @since 0.3
+	 */
+	private int[] ends = new int[16];
+
+	/**
+	 * Line of the first code-point of each token, {@code null} if they are computed from {@link #lineIndex}.
+	 *
+	 * @since 0.3
+	 */
+	private int[] lines;
+
+	/**
+	 * Column of the first code-point of each token, {@code null} if they are computed from {@link #lineIndex}.
+	 *
+	 * @since 0.3
+	 */
+	private int[] columns;
+
+	/**
+	 * {@link LineIndex} of the source, {@code null} if lines and columns are stored.
+	 *
+	 * @since 0.3
+	 */
+	private final LineIndex lineIndex;
+
+	/**
+	 * Content of the source from {@link #textStart}. Once appended, code-points are never modified, as {@link Token}s
+	 * may be sliced from it.
+	 *
+	 * @since 0.3
+	 */
+	private char[] text = new char[64];
+
+	/**
+	 * Count of code-points in {@link #text}.
+	 *
+	 * @since 0.3
+	 */
+	private int textLength;
+
+	/**
+	 * Offset in the source of the first code-point of {@link #text}.
+	 *
+	 * @since 0.3
+	 */
+	private final int textStart;
+
+	/**
+	 * Flag indicating whether the tokens cover the whole source, without error.
+	 *
+	 * @since 0.3
+	 */
+	private boolean complete;
+
+	/**
+	 * Flag indicating whether {@link #text} holds the whole content of the source.
+	 *
+	 * @since 0.3
+	 */
+	private boolean wholeSource;
+
+	/**
+	 * Greatest count of code-points examined past the end of a token to read it, not counting the code-point
+	 * following it.
+	 *
+	 * @since 0.3
+	 */
+	private int lookahead;
+
+	/**
+	 * Creates a new empty {@code TokenBuffer}.
+	 *
+	 * @param definition the {@link LanguageDefinition} used to read the tokens.
+	 * @param source name of the source of the tokens.
+	 * @param textStart offset in the source of the first code-point to be appended.
+	 * @param lineIndex index of the source to compute lines and columns from, {@code null} if they are stored.
+	 *
+	 * @since 0.3
+	 */
+	TokenBuffer(LanguageDefinition definition, String source, int textStart, LineIndex lineIndex) {
+		this.definition = definition;
+		this.source = source;
+		this.textStart = textStart;
+		this.lineIndex = lineIndex;
+		if(lineIndex == null) {
+			lines = new int[types.length];
+			columns = new int[types.length];
+		}
+	}
+
+	/**
+	 * Creates a new empty {@code TokenBuffer} over the whole content of the source, known beforehand. Lines and
+	 * columns are stored.
+	 *
+	 * @param definition the {@link LanguageDefinition} used to read the tokens.
+	 * @param source name of the source of the tokens.
+	 * @param text content of the source. It must not be modified afterwards.
+	 * @param length count of code-points of the source in {@code text}.
+	 *
+	 * @since 0.3
+	 */
+	TokenBuffer(LanguageDefinition definition, String source, char[] text, int length) {
+		this(definition, source, text, length, null);
+	}
+
+	/**
+	 * Creates a new empty {@code TokenBuffer} over the whole content of the source, known beforehand.
+	 *
+	 * @param definition the {@link LanguageDefinition} used to read the tokens.
+	 * @param source name of the source of the tokens.
+	 * @param text content of the source. It must not be modified afterwards.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param lineIndex index of the source to compute lines and columns from, {@code null} if they are stored.
+	 *
+	 * @since 0.3
+	 */
+	TokenBuffer(LanguageDefinition definition, String source, char[] text, int length, LineIndex lineIndex) {
+		this(definition, source, 0, lineIndex);
+		this.text = text;
+		this.textLength = length;
+		this.wholeSource = true;
+	}
+
+	/**
+	 * Adds a token.
+	 *
+	 * @param type type id of the token.
+	 * @param start offset of the first code-point of the token.
+	 * @param end offset following the last code-point of the token.
+	 * @param line line of the first code-point of the token, ignored if they are computed.
+	 * @param column column of the first code-point of the token, ignored if they are computed.
+	 *
+	 * @since 0.3
+	 */
+	void add(int type, int start, int end, int line, int column) {
+		if(size == types.length) grow(size + 1);
+
+		types[size] = type;
+		starts[size] = start;
+		ends[size] = end;
+		if(lineIndex == null) {
+			lines[size] = line;
+			columns[size] = column;
+		}
+		size++;
+	}
+
+	/**
+	 * Adds the tokens of {@code tokens} from {@code from} to {@code to} excluded. This {@code TokenBuffer} must store
+	 * lines and columns.
+	 *
+	 * @param tokens buffer to add the tokens of.
+	 * @param from index of the first token to add.
+	 * @param to index following the last token to add.
+	 *
+	 * @since 0.3
+	 */
+	void addAll(TokenBuffer tokens, int from, int to) {
+		var count = to - from;
+		if(size + count > types.length) grow(size + count);
+
+		System.arraycopy(tokens.types, from, types, size, count);
+		System.arraycopy(tokens.starts, from, starts, size, count);
+		System.arraycopy(tokens.ends, from, ends, size, count);
+		if(tokens.lineIndex == null) {
+			System.arraycopy(tokens.lines, from, lines, size, count);
+			System.arraycopy(tokens.columns, from, columns, size, count);
+		} else {
+			for(int i = 0; i < count; i++) {
+				lines[size + i] = tokens.lineIndex.getLine(tokens.starts[from + i]);
+				columns[size + i] = tokens.lineIndex.getColumn(tokens.starts[from + i]);
+			}
+		}
+		size += count;
+	}
+
+	/**
+	 * Grows the arrays of tokens.
+	 *
+	 * @param minCapacity minimum count of tokens to hold.
+	 *
+	 * @since 0.3
+	 */
+	private void grow(int minCapacity) {
+		var capacity = Math.max(types.length * 2, minCapacity);
+		types = Arrays.copyOf(types, capacity);
+		starts = Arrays.copyOf(starts, capacity);
+		ends = Arrays.copyOf(ends, capacity);
+		if(lineIndex == null) {
+			lines = Arrays.copyOf(lines, capacity);
+			columns = Arrays.copyOf(columns, capacity);
+		}
+	}
+
+	/**
+	 * Sets whether the tokens cover the whole source, without error.
+	 *
+	 * @param complete whether the tokens cover the whole source.
+	 *
+	 * @since 0.3
+	 */
+	void setComplete(boolean complete) {
+		this.complete = complete;
+	}
+
+	/**
+	 * Sets whether {@link #text} holds the whole content of the source.
+	 *
+	 * @param wholeSource whether the whole content of the source is held.
+	 *
+	 * @since 0.3
+	 */
+	void setWholeSource(boolean wholeSource) {
+		this.wholeSource = wholeSource;
+	}
+
+	/**
+	 * Sets the greatest count of code-points examined past the end of a token to read it.
+	 *
+	 * @param lookahead the greatest look-ahead.
+	 *
+	 * @since 0.3
+	 */
+	void setLookahead(int lookahead) {
+		this.lookahead = lookahead;
+	}
+
+	/**
+	 * Gets the greatest count of code-points examined past the end of a token to read it, not counting the code-point
+	 * following it.
+	 *
+	 * @return the greatest look-ahead.
+	 *
+	 * @since 0.3
+	 */
+	int getLookahead() {
+		return lookahead;
+	}
+
+	/**
+	 * Gets the offset in the source of the first code-point held.
+	 *
+	 * @return the offset of the content.
+	 *
+	 * @since 0.3
+	 */
+	int getTextStart() {
+		return textStart;
+	}
+
+	/**
+	 * Gets the array holding the content of the source from {@link #getTextStart()}. It must not be modified.
+	 *
+	 * @return the content.
+	 *
+	 * @since 0.3
+	 */
+	char[] getContent() {
+		return text;
+	}
+
+	/**
+	 * Gets the count of code-points held.
+	 *
+	 * @return the length of the content.
+	 *
+	 * @since 0.3
+	 */
+	int getContentLength() {
+		return textLength;
+	}
+
+	/**
+	 * Finds the token starting at {@code offset}.
+	 *
+	 * @param offset offset of the first code-point of the token.
+	 * @return the index of the token, {@code -1} if no token starts at {@code offset}.
+	 *
+	 * @since 0.3
+	 */
+	int indexOfStart(int offset) {
+		var index = Arrays.binarySearch(starts, 0, size, offset);
+		return index >= 0 ? index : -1;
+	}
+
+	/**
+	 * Appends content of the source, following the content appended so far.
+	 *
+	 * @param chars array containing the code-points to append.
+	 * @param offset position of the first code-point to append in {@code chars}.
+	 * @param length count of code-points to append.
+	 *
+	 * @since 0.3
+	 */
+	void appendText(char[] chars, int offset, int length) {
+		if(textLength + length > text.length) {
+			// a new array is used, so Tokens sliced from the previous one remain valid.
+			text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + length));
+		}
+		System.arraycopy(chars, offset, text, textLength, length);
+		textLength += length;
+	}
+
+	/**
+	 * Gets the count of tokens.
+	 *
+	 * @return the count of tokens.
+	 *
+	 * @since 0.3
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the tokens cover the whole source: its end has been reached without error.
+	 *
+	 * @return {@code true} if the tokens cover the whole source, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Checks if this {@code TokenBuffer} holds the whole content of the source, which is required to read its tokens
+	 * again after an edit. It does if the source has been read from its start to its end.
+	 *
+	 * @return {@code true} if the whole content of the source is held, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 *
+	 * @see IncrementalTokenizer
+	 */
+	public boolean isWholeSource() {
+		return wholeSource;
+	}
+
+	/**
+	 * Gets the {@link LanguageDefinition} used to read the tokens.
+	 *
+	 * @return the {@code LanguageDefinition}.
+	 *
+	 * @since 0.3
+	 */
+	public LanguageDefinition getDefinition() {
+		return definition;
+	}
+
+	/**
+	 * Gets the name of the source of the tokens.
+	 *
+	 * @return the name of the source.
+	 *
+	 * @since 0.3
+	 */
+	public String getSource() {
+		return source;
+	}
+
+	/**
+	 * Gets the type id of a token.
+	 *
+	 * @param index index of the token.
+	 * @return the type id of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 *
+	 * @see LanguageDefinition#getTokenTypeDescriptor(int)
+	 */
+	public int getTypeId(int index) {
+		return types[Objects.checkIndex(index, size)];
+	}
+
+	/**
+	 * Gets the {@link TokenTypeDescriptor} of a token.
+	 *
+	 * @param index index of the token.
+	 * @return the descriptor of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public TokenTypeDescriptor getDescriptor(int index) {
+		return definition.getTokenTypeDescriptor(getTypeId(index));
+	}
+
+	/**
+	 * Gets the offset of the first code-point of a token, from the start of the source.
+	 *
+	 * @param index index of the token.
+	 * @return the start offset of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public int getStart(int index) {
+		return starts[Objects.checkIndex(index, size)];
+	}
+
+	/**
+	 * Gets the offset following the last code-point of a token, from the start of the source.
+	 *
+	 * @param index index of the token.
+	 * @return the end offset of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public int getEnd(int index) {
+		return ends[Objects.checkIndex(index, size)];
+	}
+
+	/**
+	 * Gets the line of the first code-point of a token.
+	 *
+	 * @param index index of the token.
+	 * @return the line of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public int getLine(int index) {
+		Objects.checkIndex(index, size);
+		return lineIndex == null ? lines[index] : lineIndex.getLine(starts[index]);
+	}
+
+	/**
+	 * Gets the column of the first code-point of a token.
+	 *
+	 * @param index index of the token.
+	 * @return the column of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public int getColumn(int index) {
+		Objects.checkIndex(index, size);
+		return lineIndex == null ? columns[index] : lineIndex.getColumn(starts[index]);
+	}
+
+	/**
+	 * Gets the {@link LineIndex} from which lines and columns are computed.
+	 *
+	 * @return the {@code LineIndex}, {@code null} if lines and columns are stored.
+	 *
+	 * @since 0.3
+	 */
+	public LineIndex getLineIndex() {
+		return lineIndex;
+	}
+
+	/**
+	 * Gets the value of a token without creating a {@code String}.
+	 *
+	 * @param index index of the token.
+	 * @return a read-only view of the value of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public CharSequence getText(int index) {
+		Objects.checkIndex(index, size);
+		return CharBuffer.wrap(text, starts[index] - textStart, ends[index] - starts[index]).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Gets the value of a token.
+	 *
+	 * @param index index of the token.
+	 * @return the value of the token.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public String getValue(int index) {
+		Objects.checkIndex(index, size);
+		return new String(text, starts[index] - textStart, ends[index] - starts[index]);
+	}
+
+	/**
+	 * Creates the {@link Token} of a token. Its value is sliced from the content of the source, and
+	 * {@link TokenTypeDescriptor#makeToken} is not called: the {@code Tokenizer} has already checked that the
+	 * descriptor corresponds to the value.
+	 *
+	 * @param index index of the token.
+	 * @return the {@code Token}.
+	 *
+	 * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+	 *
+	 * @since 0.3
+	 */
+	public Token getToken(int index) {
+		var descriptor = getDescriptor(index);
+		var line = lineIndex == null ? lines[index] : 0;
+		var column = lineIndex == null ? columns[index] : 0;
+
+		return new Token(descriptor, types[index], null, text, starts[index] - textStart, ends[index] - starts[index],
+				source, line, column, lineIndex, starts[index]);
+	}
+
+	/**
+	 * Creates the {@link Token}s of all the tokens.
+	 *
+	 * @return the {@code Token}s, by index.
+	 *
+	 * @since 0.3
+	 *
+	 * @see #getToken(int)
+	 */
+	public Token[] toArray() {
+		var tokens = new Token[size];
+		for(int i = 0; i < size; i++) {
+			tokens[i] = getToken(i);
+		}
+		return tokens;
+	}
+}
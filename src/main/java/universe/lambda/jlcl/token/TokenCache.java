@@ -0,0 +1,524 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.LanguageDefinition;
+import universe.lambda.jlcl.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistent cache of the tokens of files, stored in a directory. Reading the tokens of a file which has already been
+ * read with the same {@link LanguageDefinition} only reads the stored tokens, instead of reading them again.<br><br>
+ *
+ * Entries are keyed by a hash of the content of the file and the fingerprint of the {@code LanguageDefinition}, so a
+ * modified file or definition never gets stale tokens. Definitions holding descriptors which are not built-in are
+ * only accepted if those give their settings, so the fingerprint changes along with what they read. Each entry is written under a temporary name then renamed, so
+ * several processes can share the directory. When the entries exceed a maximum size, the least recently used ones are
+ * deleted.<br><br>
+ *
+ * Only complete results are stored: errors are logged each time a file is read. A {@code TokenCache} is thread-safe.
+ *
+ * @since 0.3
+ *
+ * @see LanguageDefinition#getFingerprint()
+ */
+public final class TokenCache {
+	/**
+	 * Magic number starting entries, {@code "ULCT"} in ASCII.
+	 *
+	 * @since 0.3
+	 */
+	private static final int MAGIC = 0x554C4354;
+
+	/**
+	 * Version of the format of entries, changed whenever the format is.
+	 *
+	 * @since 0.3
+	 */
+	private static final int VERSION = 1;
+
+	/**
+	 * Extension of the entry files.
+	 *
+	 * @since 0.3
+	 */
+	private static final String EXTENSION = ".tok";
+
+	/**
+	 * Length of the header of entries: magic number, version, content length, lookahead and count of tokens.
+	 *
+	 * @since 0.3
+	 */
+	private static final int HEADER_LENGTH = 20;
+
+	/**
+	 * The {@link LanguageDefinition} used to read all files.
+	 *
+	 * @since 0.3
+	 */
+	private final LanguageDefinition definition;
+
+	/**
+	 * Fingerprint of {@link #definition}.
+	 *
+	 * @since 0.3
+	 */
+	private final byte[] fingerprint;
+
+	/**
+	 * Directory holding the entries.
+	 *
+	 * @since 0.3
+	 */
+	private final Path directory;
+
+	/**
+	 * Maximum size of the entries, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	private final long maxSize;
+
+	/**
+	 * Estimated size of the entries, in bytes. Other processes sharing the directory are only accounted for on
+	 * eviction.
+	 *
+	 * @since 0.3
+	 */
+	private final AtomicLong size = new AtomicLong();
+
+	/**
+	 * Creates a new {@code TokenCache}, creating its directory if needed.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param directory directory holding the entries.
+	 * @param maxSize maximum size of the entries, in bytes.
+	 *
+	 * @throws IOException if the directory cannot be created or listed.
+	 * @throws IllegalArgumentException if {@code maxSize} is not positive, or if {@code definition} has no
+	 * fingerprint.
+	 *
+	 * @since 0.3
+	 *
+	 * @see universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor#getSettings()
+	 */
+	public TokenCache(LanguageDefinition definition, Path directory, long maxSize) throws IOException {
+		if(maxSize <= 0) throw new IllegalArgumentException("Maximum size must be positive: " + maxSize);
+		var fingerprint = definition.getFingerprint();
+		if(fingerprint == null) {
+			throw new IllegalArgumentException("Definition has no fingerprint, as a descriptor does not give its settings");
+		}
+
+		this.definition = definition;
+		this.fingerprint = fingerprint.getBytes(StandardCharsets.US_ASCII);
+		this.directory = Files.createDirectories(directory);
+		this.maxSize = maxSize;
+
+		try(var entries = listEntries()) {
+			for(var entry : entries) {
+				size.addAndGet(sizeOf(entry));
+			}
+		}
+	}
+
+	/**
+	 * Reads the tokens of a file, from its entry if it has one, or with a {@link Tokenizer} otherwise.
+	 *
+	 * @param path path of the UTF-8 file to read.
+	 * @return the tokens of the file, {@code null} if it cannot be read, which is logged.
+	 *
+	 * @since 0.3
+	 */
+	public TokenBuffer tokenize(Path path) {
+		byte[] bytes;
+		char[] text;
+		try {
+			bytes = Files.readAllBytes(path);
+			var chars = StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(bytes));
+			text = new char[chars.remaining()];
+			chars.get(text);
+		} catch(IOException e) {
+			Logger.error(path + ": " + e);
+			return null;
+		}
+
+		var entry = directory.resolve(getKey(bytes) + EXTENSION);
+		var cached = readEntry(entry, path.toString(), text);
+		if(cached != null) {
+			touch(entry);
+			return cached;
+		}
+
+		var tokens = new Tokenizer(definition, new CharArrayReader(text), path.toString(),
+				Tokenizer.windowSize(text.length, Tokenizer.DEFAULT_WINDOW_SIZE)).readTokenBuffer();
+		if(tokens.isComplete()) writeEntry(entry, tokens);
+		return tokens;
+	}
+
+	/**
+	 * Gets the estimated size of the entries.
+	 *
+	 * @return the size of the entries, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	public long getSize() {
+		return size.get();
+	}
+
+	/**
+	 * Gets the maximum size of the entries.
+	 *
+	 * @return the maximum size of the entries, in bytes.
+	 *
+	 * @since 0.3
+	 */
+	public long getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Gets the key of the entry of a file: the hash of the fingerprint of {@link #definition} and the content of the
+	 * file.
+	 *
+	 * @param bytes content of the file.
+	 * @return the key, in hexadecimal.
+	 *
+	 * @since 0.3
+	 */
+	private String getKey(byte[] bytes) {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance("SHA-256");
+		} catch(NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256.
+			throw new IllegalStateException(e);
+		}
+		digest.update(fingerprint);
+		digest.update(bytes);
+
+		var hash = digest.digest();
+		var key = new StringBuilder(32);
+		for(int i = 0; i < 16; i++) {
+			key.append(Character.forDigit((hash[i] >> 4) & 0xF, 16)).append(Character.forDigit(hash[i] & 0xF, 16));
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Reads the tokens stored in an entry. Lines and columns are computed from the content of the file.
+	 *
+	 * @param entry path of the entry.
+	 * @param source name of the source of the tokens.
+	 * @param text content of the file.
+	 * @return the tokens, {@code null} if there is no valid entry.
+	 *
+	 * @since 0.3
+	 */
+	private TokenBuffer readEntry(Path entry, String source, char[] text) {
+		byte[] bytes;
+		try {
+			bytes = Files.readAllBytes(entry);
+		} catch(IOException e) {
+			// the entry does not exist, or has just been evicted.
+			return null;
+		}
+
+		var in = ByteBuffer.wrap(bytes);
+		if(bytes.length < HEADER_LENGTH || in.getInt() != MAGIC || in.getInt() != VERSION
+				|| in.getInt() != text.length) {
+			return null;
+		}
+		var lookahead = in.getInt();
+		var count = in.getInt();
+		// each token takes at least three bytes.
+		if(count < 0 || count > (bytes.length - HEADER_LENGTH) / 3) return null;
+
+		var lineIndex = new LineIndex();
+		lineIndex.scan(text, 0, text.length, 0);
+		var tokens = new TokenBuffer(definition, source, text, text.length, lineIndex);
+		tokens.setLookahead(lookahead);
+
+		var typeCount = definition.getTokenTypeCount();
+		var position = new int[]{HEADER_LENGTH};
+		var end = 0;
+		for(int i = 0; i < count; i++) {
+			var type = readVarInt(bytes, position);
+			var start = end + readVarInt(bytes, position);
+			var length = readVarInt(bytes, position);
+			if(type < 0 || type >= typeCount || start < end || length <= 0 || start > text.length - length) {
+				return null;
+			}
+
+			end = start + length;
+			tokens.add(type, start, end, 0, 0);
+		}
+		if(position[0] != bytes.length) return null;
+
+		tokens.setComplete(true);
+		return tokens;
+	}
+
+	/**
+	 * Stores tokens in an entry, then evicts entries if they exceed the maximum size. Failures are logged, the tokens
+	 * being read anyway.<br><br>
+	 *
+	 * Each token is stored as its type id, the count of code-points since the end of the previous token and its length,
+	 * all of them as variable-length integers, so most tokens take three bytes.
+	 *
+	 * @param entry path of the entry.
+	 * @param tokens tokens to store.
+	 *
+	 * @since 0.3
+	 */
+	private void writeEntry(Path entry, TokenBuffer tokens) {
+		var bytes = new ByteArrayOutputStream(HEADER_LENGTH + tokens.size() * 3);
+		try(var out = new DataOutputStream(bytes)) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(tokens.getContentLength());
+			out.writeInt(tokens.getLookahead());
+			out.writeInt(tokens.size());
+
+			var end = 0;
+			for(int i = 0; i < tokens.size(); i++) {
+				writeVarInt(out, tokens.getTypeId(i));
+				writeVarInt(out, tokens.getStart(i) - end);
+				writeVarInt(out, tokens.getEnd(i) - tokens.getStart(i));
+				end = tokens.getEnd(i);
+			}
+		} catch(IOException e) {
+			// a ByteArrayOutputStream never fails.
+			throw new IllegalStateException(e);
+		}
+
+		Path temp = null;
+		long replaced;
+		try {
+			temp = Files.createTempFile(directory, entry.getFileName().toString(), ".tmp");
+			Files.write(temp, bytes.toByteArray());
+			// an entry which could not be read is replaced, and its size no longer counts.
+			replaced = sizeOf(entry);
+			Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch(IOException e) {
+			Logger.warn(entry + ": cannot store tokens: " + e);
+			if(temp != null) delete(temp);
+			return;
+		}
+
+		if(size.addAndGet(bytes.size() - replaced) > maxSize) evict();
+	}
+
+	/**
+	 * Writes a non-negative integer by groups of 7 bits, the lowest first, the highest bit of each byte telling
+	 * whether another one follows.
+	 *
+	 * @param out output to write to.
+	 * @param value integer to write.
+	 *
+	 * @throws IOException if writing fails.
+	 *
+	 * @since 0.3
+	 */
+	private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+		while((value & ~0x7F) != 0) {
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads an integer written by {@link #writeVarInt(DataOutputStream, int)}.
+	 *
+	 * @param bytes bytes to read from.
+	 * @param position single-element array holding the position to read at, moved after the integer.
+	 * @return the read integer, {@code -1} if it is truncated or too long.
+	 *
+	 * @since 0.3
+	 */
+	private static int readVarInt(byte[] bytes, int[] position) {
+		var value = 0;
+		for(int shift = 0; shift < 32 && position[0] < bytes.length; shift += 7) {
+			var b = bytes[position[0]++];
+			value |= (b & 0x7F) << shift;
+			if(b >= 0) return value;
+		}
+		return -1;
+	}
+
+	/**
+	 * Deletes the least recently used entries, until they take at most three quarters of the maximum size, so the
+	 * directory is not listed again on each following write. The estimated size is corrected by the difference between
+	 * the listed entries and the size estimated before listing them.
+	 *
+	 * @since 0.3
+	 */
+	private synchronized void evict() {
+		var seen = size.get();
+		if(seen <= maxSize) return;
+
+		var found = new ArrayList<Entry>();
+		var total = 0L;
+		try(var entries = listEntries()) {
+			for(var entry : entries) {
+				BasicFileAttributes attributes;
+				try {
+					attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+				} catch(NoSuchFileException e) {
+					continue;
+				}
+				found.add(new Entry(entry, attributes.lastModifiedTime(), attributes.size()));
+				total += attributes.size();
+			}
+		} catch(IOException e) {
+			Logger.warn(directory + ": cannot evict tokens: " + e);
+			return;
+		}
+
+		found.sort(Comparator.comparing(entry -> entry.used));
+		for(int i = 0; i < found.size() && total > maxSize / 4 * 3; i++) {
+			delete(found.get(i).path);
+			total -= found.get(i).size;
+		}
+		// writes are not synchronized: the ones done during the scan must still be accounted for.
+		size.addAndGet(total - seen);
+	}
+
+	/**
+	 * Marks an entry as used, by updating its last modification time.
+	 *
+	 * @param entry path of the entry.
+	 *
+	 * @since 0.3
+	 */
+	private static void touch(Path entry) {
+		try {
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+		} catch(IOException ignored) {
+			// the entry has just been evicted, its tokens are read anyway.
+		}
+	}
+
+	/**
+	 * Deletes a file, if it still exists.
+	 *
+	 * @param file path of the file.
+	 *
+	 * @since 0.3
+	 */
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch(IOException e) {
+			Logger.warn(file + ": cannot delete: " + e);
+		}
+	}
+
+	/**
+	 * Gets the size of a file.
+	 *
+	 * @param file path of the file.
+	 * @return the size of the file, {@code 0} if it does not exist anymore.
+	 *
+	 * @since 0.3
+	 */
+	private static long sizeOf(Path file) {
+		try {
+			return Files.size(file);
+		} catch(IOException e) {
+			return 0;
+		}
+	}
+
+	/**
+	 * Lists the entries of {@link #directory}.
+	 *
+	 * @return a stream of the paths of the entries, to close.
+	 *
+	 * @throws IOException if the directory cannot be listed.
+	 *
+	 * @since 0.3
+	 */
+	private DirectoryStream<Path> listEntries() throws IOException {
+		return Files.newDirectoryStream(directory, "*" + EXTENSION);
+	}
+
+	/**
+	 * Entry found when evicting.
+	 *
+	 * @since 0.3
+	 */
+	private static final class Entry {
+		/**
+		 * Path of the entry.
+		 *
+		 * @since 0.3
+		 */
+		private final Path path;
+
+		/**
+		 * Time the entry has last been used.
+		 *
+		 * @since 0.3
+		 */
+		private final FileTime used;
+
+		/**
+		 * Size of the entry, in bytes.
+		 *
+		 * @since 0.3
+		 */
+		private final long size;
+
+		/**
+		 * Creates a new {@code Entry}.
+		 *
+		 * @param path path of the entry.
+		 * @param used time the entry has last been used.
+		 * @param size size of the entry, in bytes.
+		 *
+		 * @since 0.3
+		 */
+		private Entry(Path path, FileTime used, long size) {
+			this.path = path;
+			this.used = used;
+			this.size = size;
+		}
+	}
+}
@@ -0,0 +1,337 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
+
+import java.util.Objects;
+
+/**
+ * Mutable cursor over the tokens read by a {@link Tokenizer}, created by {@link Tokenizer#cursor()}.<br><br>
+ *
+ * {@link #next()} reads the next token, which then becomes the current one, and the accessors read it in place. The
+ * same {@code TokenCursor}, and the same {@code CharSequence} returned by {@link #getText()}, are reused for all the
+ * tokens, so no object is created per token unless a {@link Token} or {@code String} is requested. The text of the
+ * current token is only valid until the next call to {@link #next()}.
+ *
+ * @since 0.3
+ */
+public final class TokenCursor {
+	/**
+	 * The {@link Tokenizer} reading the tokens.
+	 *
+	 * @since 0.3
+	 */
+	private final Tokenizer tokenizer;
+
+	/**
+	 * Receiver of the tokens of {@link #tokenizer}, updating this cursor.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenSink receiver = this::receive;
+
+	/**
+	 * View of the value of the current token, returned by {@link #getText()}.
+	 *
+	 * @since 0.3
+	 */
+	private final Text text = new Text();
+
+	/**
+	 * Flag indicating whether there is a current token.
+	 *
+	 * @since 0.3
+	 */
+	private boolean current;
+
+	/**
+	 * Type id of the current token.
+	 *
+	 * @since 0.3
+	 */
+	private int typeId;
+
+	/**
+	 * Buffer holding the value of the current token.
+	 *
+	 * @since 0.3
+	 */
+	private char[] buffer;
+
+	/**
+	 * Position in {@link #buffer} of the first code-point of the value of the current token.
+	 *
+	 * @since 0.3
+	 */
+	private int bufferStart;
+
+	/**
+	 * Length of the value of the current token.
+	 *
+	 * @since 0.3
+	 */
+	private int length;
+
+	/**
+	 * Offset of the current token from the start of the source.
+	 *
+	 * @since 0.3
+	 */
+	private int offset;
+
+	/**
+	 * Line of the current token.
+	 *
+	 * @since 0.3
+	 */
+	private int line;
+
+	/**
+	 * Column of the current token.
+	 *
+	 * @since 0.3
+	 */
+	private int column;
+
+	/**
+	 * Creates a new {@code TokenCursor}, without current token.
+	 *
+	 * @param tokenizer the {@link Tokenizer} reading the tokens.
+	 *
+	 * @since 0.3
+	 */
+	TokenCursor(Tokenizer tokenizer) {
+		this.tokenizer = tokenizer;
+	}
+
+	/**
+	 * Reads the next token, which becomes the current one.
+	 *
+	 * @return {@code true} if a token has been read, {@code false} if an error happened or the end of the source has
+	 * been reached, in which case there is no current token anymore.
+	 *
+	 * @since 0.3
+	 *
+	 * @see Tokenizer#hasFailed()
+	 */
+	public boolean next() {
+		current = tokenizer.readNext(receiver);
+		return current;
+	}
+
+	/**
+	 * Checks if there is a current token.
+	 *
+	 * @return {@code true} if the last call to {@link #next()} read a token, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public boolean hasCurrent() {
+		return current;
+	}
+
+	/**
+	 * Gets the type id of the current token.
+	 *
+	 * @return the type id.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 *
+	 * @see universe.lambda.jlcl.LanguageDefinition#getTokenTypeDescriptor(int)
+	 */
+	public int getTypeId() {
+		check();
+		return typeId;
+	}
+
+	/**
+	 * Gets the {@link TokenTypeDescriptor} of the current token.
+	 *
+	 * @return the descriptor.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public TokenTypeDescriptor getDescriptor() {
+		check();
+		return tokenizer.getDefinition().getTokenTypeDescriptor(typeId);
+	}
+
+	/**
+	 * Gets the value of the current token without creating a {@code String}. The returned {@code CharSequence} is
+	 * the same for all tokens, and always reads the value of the current one.
+	 *
+	 * @return a view of the value.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public CharSequence getText() {
+		check();
+		return text;
+	}
+
+	/**
+	 * Gets the value of the current token.
+	 *
+	 * @return a new {@code String} of the value.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public String getValue() {
+		check();
+		return new String(buffer, bufferStart, length);
+	}
+
+	/**
+	 * Gets the offset of the first code-point of the current token, from the start of the source.
+	 *
+	 * @return the start offset.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public int getStart() {
+		check();
+		return offset;
+	}
+
+	/**
+	 * Gets the offset following the last code-point of the current token, from the start of the source.
+	 *
+	 * @return the end offset.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public int getEnd() {
+		check();
+		return offset + length;
+	}
+
+	/**
+	 * Gets the line of the first code-point of the current token.
+	 *
+	 * @return the line.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public int getLine() {
+		check();
+		return line;
+	}
+
+	/**
+	 * Gets the column of the first code-point of the current token.
+	 *
+	 * @return the column.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public int getColumn() {
+		check();
+		return column;
+	}
+
+	/**
+	 * Creates a {@link Token} of the current token, which remains valid after the cursor moves on.
+	 * {@link TokenTypeDescriptor#makeToken} is not called.
+	 *
+	 * @return a new {@code Token}.
+	 *
+	 * @throws IllegalStateException if there is no current token.
+	 *
+	 * @since 0.3
+	 */
+	public Token getToken() {
+		var value = getValue();
+		return new Token(getDescriptor(), typeId, value, null, 0, value.length(), tokenizer.getSourceName(), line,
+				column, null, -1);
+	}
+
+	/**
+	 * Updates this cursor with a token read by {@link #tokenizer}.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenSink#accept
+	 */
+	private void receive(int typeId, char[] buffer, int start, int end, int offset, int line, int column) {
+		this.typeId = typeId;
+		this.buffer = buffer;
+		this.bufferStart = start;
+		this.length = end - start;
+		this.offset = offset;
+		this.line = line;
+		this.column = column;
+	}
+
+	/**
+	 * Checks that there is a current token.
+	 *
+	 * @throws IllegalStateException if there is none.
+	 *
+	 * @since 0.3
+	 */
+	private void check() {
+		if(!current) throw new IllegalStateException("No current token");
+	}
+
+	/**
+	 * View of the value of the current token.
+	 *
+	 * @since 0.3
+	 */
+	private final class Text implements CharSequence {
+		@Override
+		public int length() {
+			return length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return buffer[bufferStart + Objects.checkIndex(index, length)];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			Objects.checkFromToIndex(start, end, length);
+			return new String(buffer, bufferStart + start, end - start);
+		}
+
+		@Override
+		public String toString() {
+			return new String(buffer, bufferStart, length);
+		}
+	}
+}
@@ -0,0 +1,270 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.Logger;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Flow.Publisher} of the {@link Token}s read by a {@link Tokenizer}.<br><br>
+ *
+ * Tokens are only read as they are requested by the {@link Flow.Subscriber}: a slow subscriber throttles reading, and
+ * the memory held stays bounded whatever the size of the source. Signals are sent from the threads of an
+ * {@link Executor}, one at a time.<br><br>
+ *
+ * A {@code Tokenizer} can only be read once, so a {@code TokenPublisher} accepts a single subscriber. Errors in the
+ * source are logged by the {@code Tokenizer}, then signaled as an {@link IllegalStateException}.
+ *
+ * @since 0.3
+ */
+public final class TokenPublisher implements Flow.Publisher<Token> {
+	/**
+	 * The {@link Tokenizer} reading the published tokens.
+	 *
+	 * @since 0.3
+	 */
+	private final Tokenizer tokenizer;
+
+	/**
+	 * The {@link Executor} on which tokens are read and signaled.
+	 *
+	 * @since 0.3
+	 */
+	private final Executor executor;
+
+	/**
+	 * Flag indicating whether a subscriber has subscribed.
+	 *
+	 * @since 0.3
+	 */
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+
+	/**
+	 * Creates a new {@code TokenPublisher} signaling on the common {@link ForkJoinPool}.
+	 *
+	 * @param tokenizer tokenizer reading the tokens to publish. It must not be read by anything else.
+	 *
+	 * @since 0.3
+	 */
+	public TokenPublisher(Tokenizer tokenizer) {
+		this(tokenizer, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Creates a new {@code TokenPublisher}.
+	 *
+	 * @param tokenizer tokenizer reading the tokens to publish. It must not be read by anything else.
+	 * @param executor executor on which tokens are read and signaled.
+	 *
+	 * @since 0.3
+	 */
+	public TokenPublisher(Tokenizer tokenizer, Executor executor) {
+		this.tokenizer = Objects.requireNonNull(tokenizer);
+		this.executor = Objects.requireNonNull(executor);
+	}
+
+	/**
+	 * Subscribes {@code subscriber} to the tokens. Any subscriber after the first one only receives an
+	 * {@link IllegalStateException}.
+	 *
+	 * @param subscriber subscriber to the tokens.
+	 *
+	 * @since 0.3
+	 */
+	@Override
+	public void subscribe(Flow.Subscriber<? super Token> subscriber) {
+		Objects.requireNonNull(subscriber);
+
+		var subscription = new TokenSubscription(subscriber);
+		if(!subscribed.compareAndSet(false, true)) {
+			subscription.failure = new IllegalStateException("Tokens already published to a subscriber");
+		}
+		subscription.schedule();
+	}
+
+	/**
+	 * {@link Flow.Subscription} of a subscriber of the enclosing {@link TokenPublisher}.<br><br>
+	 *
+	 * All signals are sent by {@link #run()}, which a single thread runs at a time, while there are things to do.
+	 *
+	 * @since 0.3
+	 */
+	private final class TokenSubscription implements Flow.Subscription, Runnable {
+		/**
+		 * Subscriber receiving the signals, {@code null} once terminated.
+		 *
+		 * @since 0.3
+		 */
+		private Flow.Subscriber<? super Token> subscriber;
+
+		/**
+		 * Count of tokens requested and not sent yet, {@link Long#MAX_VALUE} if unbounded.
+		 *
+		 * @since 0.3
+		 */
+		private final AtomicLong demand = new AtomicLong();
+
+		/**
+		 * Count of calls to {@link #schedule()} not yet handled by {@link #run()}.
+		 *
+		 * @since 0.3
+		 */
+		private final AtomicInteger pending = new AtomicInteger();
+
+		/**
+		 * Flag indicating whether {@link Flow.Subscriber#onSubscribe} has been called.
+		 *
+		 * @since 0.3
+		 */
+		private boolean started;
+
+		/**
+		 * Flag indicating whether the subscription has been cancelled.
+		 *
+		 * @since 0.3
+		 */
+		private volatile boolean cancelled;
+
+		/**
+		 * Error to signal before any token, {@code null} if none.
+		 *
+		 * @since 0.3
+		 */
+		private volatile Throwable failure;
+
+		/**
+		 * Creates a new {@code TokenSubscription}.
+		 *
+		 * @param subscriber subscriber receiving the signals.
+		 *
+		 * @since 0.3
+		 */
+		private TokenSubscription(Flow.Subscriber<? super Token> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if(n <= 0) {
+				failure = new IllegalArgumentException("Requested token count must be positive: " + n);
+			} else {
+				demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+			}
+			schedule();
+		}
+
+		@Override
+		public void cancel() {
+			cancelled = true;
+			schedule();
+		}
+
+		/**
+		 * Makes sure {@link #run()} is run again, on the executor if it is not running.
+		 *
+		 * @since 0.3
+		 */
+		private void schedule() {
+			if(pending.getAndIncrement() == 0) executor.execute(this);
+		}
+
+		/**
+		 * Sends the signals there are to send. If the subscriber throws an exception, the subscription is cancelled
+		 * and the exception is logged, as the Reactive Streams specification requires (rule 2.13).
+		 *
+		 * @since 0.3
+		 */
+		@Override
+		public void run() {
+			var missed = 1;
+			do {
+				try {
+					if(!started) {
+						started = true;
+						subscriber.onSubscribe(this);
+					}
+					send();
+				} catch(RuntimeException e) {
+					cancelled = true;
+					subscriber = null;
+					Logger.error("subscriber of " + tokenizer.getSourceName() + " failed: " + e);
+				}
+				missed = pending.addAndGet(-missed);
+			} while(missed != 0);
+		}
+
+		/**
+		 * Reads and sends the requested tokens, and the terminal signal if reached.
+		 *
+		 * @since 0.3
+		 */
+		private void send() {
+			while(subscriber != null) {
+				if(cancelled) {
+					subscriber = null;
+					return;
+				}
+				if(failure != null) {
+					terminate(failure);
+					return;
+				}
+				if(demand.get() == 0) return;
+
+				Token token;
+				try {
+					token = tokenizer.readToken();
+				} catch(RuntimeException e) {
+					terminate(e);
+					return;
+				}
+
+				if(token == null) {
+					terminate(tokenizer.hasFailed() ? new IllegalStateException("Tokenization of "
+							+ tokenizer.getSourceName() + " failed") : null);
+					return;
+				}
+
+				demand.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - 1);
+				subscriber.onNext(token);
+			}
+		}
+
+		/**
+		 * Sends the terminal signal, and releases the subscriber.
+		 *
+		 * @param error error to signal, {@code null} to signal completion.
+		 *
+		 * @since 0.3
+		 */
+		private void terminate(Throwable error) {
+			var target = subscriber;
+			subscriber = null;
+			if(error != null) target.onError(error);
+			else target.onComplete();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+/**
+ * Receiver of the tokens read by {@link Tokenizer#tokenize(TokenSink)}, called once per token without creating any
+ * object: neither a {@link Token} nor a {@code String} of its value.<br><br>
+ *
+ * The value of a token is passed as a slice of the buffer the {@code Tokenizer} reads the source in. The buffer is
+ * reused for the following tokens: it must not be modified, nor kept after the call.
+ *
+ * @since 0.3
+ */
+@FunctionalInterface
+public interface TokenSink {
+	/**
+	 * Receives a token.
+	 *
+	 * @param typeId type id of the token.
+	 * @param buffer buffer holding the value of the token.
+	 * @param start position in {@code buffer} of the first code-point of the value.
+	 * @param end position in {@code buffer} following the last code-point of the value.
+	 * @param offset offset of the first code-point of the token from the start of the source.
+	 * @param line line of the first code-point of the token.
+	 * @param column column of the first code-point of the token.
+	 *
+	 * @since 0.3
+	 *
+	 * @see universe.lambda.jlcl.LanguageDefinition#getTokenTypeDescriptor(int)
+	 */
+	void accept(int typeId, char[] buffer, int start, int end, int offset, int line, int column);
+}
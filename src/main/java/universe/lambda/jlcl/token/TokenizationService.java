@@ -0,0 +1,218 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.LanguageDefinition;
+import universe.lambda.jlcl.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.BiConsumer;
+
+/**
+ * Service reading the tokens of many files concurrently, with a single {@link LanguageDefinition}.<br><br>
+ *
+ * Each file is read into a {@link TokenBuffer} by its own {@link Tokenizer}, through memory mapping, on an
+ * {@link Executor}. At most a given count of files are read at once: submitting the next file waits until one of them
+ * is done, so the memory held by pending results stays bounded whatever the count of files.<br><br>
+ *
+ * Files which cannot be read are logged and have no {@code TokenBuffer}. Errors in the content of a file are logged by
+ * its {@code Tokenizer}, and its {@code TokenBuffer} is then not complete.
+ *
+ * @since 0.3
+ *
+ * @see TokenBuffer#isComplete()
+ */
+public final class TokenizationService {
+	/**
+	 * The {@link LanguageDefinition} used to read all files.
+	 *
+	 * @since 0.3
+	 */
+	private final LanguageDefinition definition;
+
+	/**
+	 * The {@link Executor} on which files are read.
+	 *
+	 * @since 0.3
+	 */
+	private final Executor executor;
+
+	/**
+	 * Maximum count of files read at once.
+	 *
+	 * @since 0.3
+	 */
+	private final int maxInFlight;
+
+	/**
+	 * Creates a new {@code TokenizationService} reading files on the common {@link ForkJoinPool}, up to twice as many
+	 * at once as there are processors.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 *
+	 * @since 0.3
+	 */
+	public TokenizationService(LanguageDefinition definition) {
+		this(definition, ForkJoinPool.commonPool(), Runtime.getRuntime().availableProcessors() * 2);
+	}
+
+	/**
+	 * Creates a new {@code TokenizationService}.
+	 *
+	 * @param definition definition of the language to read tokens for.
+	 * @param executor executor on which files are read.
+	 * @param maxInFlight maximum count of files read at once.
+	 *
+	 * @throws IllegalArgumentException if {@code maxInFlight} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	public TokenizationService(LanguageDefinition definition, Executor executor, int maxInFlight) {
+		if(maxInFlight <= 0) throw new IllegalArgumentException("Maximum in-flight count must be positive: " + maxInFlight);
+
+		this.definition = Objects.requireNonNull(definition);
+		this.executor = Objects.requireNonNull(executor);
+		this.maxInFlight = maxInFlight;
+	}
+
+	/**
+	 * Reads the tokens of all {@code paths}, and waits until all of them are read.
+	 *
+	 * @param paths paths of the UTF-8 files to read.
+	 * @return the tokens of each file, in the order of {@code paths}. The tokens of a file which could not be read are
+	 * {@code null}.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted while waiting. Files already submitted are
+	 * still read.
+	 * @throws RejectedExecutionException if the executor refuses to read a file.
+	 *
+	 * @since 0.3
+	 */
+	public TokenBuffer[] tokenize(List<Path> paths) throws InterruptedException {
+		var results = new TokenBuffer[paths.size()];
+		// the permits acquired and released around each file order the writes before the return.
+		submit(paths, (index, path, tokens) -> results[index] = tokens);
+		return results;
+	}
+
+	/**
+	 * Reads the tokens of all {@code paths}, passing those of each file to {@code callback} as soon as it is read, and
+	 * waits until all of them are read and passed.<br><br>
+	 *
+	 * {@code callback} is called from the threads of the executor, possibly concurrently, in no particular order.
+	 * Exceptions it throws are logged.
+	 *
+	 * @param paths paths of the UTF-8 files to read.
+	 * @param callback function receiving the path and tokens of each file. The tokens of a file which could not be
+	 * read are {@code null}.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted while waiting. Files already submitted are
+	 * still read.
+	 * @throws RejectedExecutionException if the executor refuses to read a file.
+	 *
+	 * @since 0.3
+	 */
+	public void tokenize(Iterable<Path> paths, BiConsumer<Path, TokenBuffer> callback) throws InterruptedException {
+		submit(paths, (index, path, tokens) -> callback.accept(path, tokens));
+	}
+
+	/**
+	 * Submits the reading of each file to the executor, waiting while {@link #maxInFlight} files are being read, then
+	 * waits until all files are read.
+	 *
+	 * @param paths paths of the files to read.
+	 * @param completion function receiving the tokens of each file.
+	 *
+	 * @throws InterruptedException if the current thread is interrupted while waiting.
+	 * @throws RejectedExecutionException if the executor refuses to read a file.
+	 *
+	 * @since 0.3
+	 */
+	private void submit(Iterable<Path> paths, Completion completion) throws InterruptedException {
+		var permits = new Semaphore(maxInFlight);
+		var index = 0;
+
+		for(var path : paths) {
+			permits.acquire();
+
+			final var current = index++;
+			try {
+				executor.execute(() -> {
+					try {
+						completion.complete(current, path, read(path));
+					} catch (RuntimeException e) {
+						Logger.error(path + ": " + e);
+					} finally {
+						permits.release();
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				permits.release();
+				throw e;
+			}
+		}
+
+		// all permits are available again once every file is done.
+		permits.acquire(maxInFlight);
+	}
+
+	/**
+	 * Reads the tokens of a file.
+	 *
+	 * @param path path of the file to read.
+	 * @return the tokens of the file, {@code null} if it could not be read.
+	 *
+	 * @since 0.3
+	 */
+	private TokenBuffer read(Path path) {
+		try {
+			return Tokenizer.open(definition, path).readTokenBuffer();
+		} catch (IOException e) {
+			Logger.error(path + ": " + e);
+			return null;
+		}
+	}
+
+	/**
+	 * Function receiving the tokens of a file read by {@link #submit}.
+	 *
+	 * @since 0.3
+	 */
+	@FunctionalInterface
+	private interface Completion {
+		/**
+		 * Receives the tokens of a file.
+		 *
+		 * @param index index of the file in the submitted paths.
+		 * @param path path of the file.
+		 * @param tokens tokens of the file, {@code null} if it could not be read.
+		 *
+		 * @since 0.3
+		 */
+		void complete(int index, Path path, TokenBuffer tokens);
+	}
+}
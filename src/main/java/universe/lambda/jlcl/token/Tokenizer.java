@@ -21,18 +21,53 @@ package universe.lambda.jlcl.token;
 
 import universe.lambda.jlcl.LanguageDefinition;
 import universe.lambda.jlcl.Logger;
+import universe.lambda.jlcl.token.automaton.Automaton;
+import universe.lambda.jlcl.token.automaton.StateMachines;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTrie;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.TokenMatcher;
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
- * Class used to read {@link Token}s from a {@link Reader} and a {@link LanguageDefinition}.
+ * Class used to read {@link Token}s from a {@link Reader} and a {@link LanguageDefinition}.<br><br>
+ *
+ * Code-points are fed to a {@link TokenMatcher} per {@link TokenTypeDescriptor}, until none of them may correspond to
+ * the value read so far. Defined descriptors are all matched at once by the {@link DefinedTokenTrie} of the
+ * {@code LanguageDefinition}. The {@code Token} is then made by the first descriptor, by priority, which corresponds to
+ * the value.<br><br>
+ *
+ * If the {@code LanguageDefinition} has a compiled {@link Automaton}, it is used to read {@code Token}s in a single
+ * pass: the longest input accepted by the {@code Automaton} is retained, and code-points read past it are read again
+ * for the next {@code Token}.<br><br>
+ *
+ * The source is read in blocks into a window reused for all {@code Token}s, from which their values are sliced. The
+ * window only grows when a single {@code Token} does not fit in it, so the {@link Reader} does not need to be buffered.
+ * The value of a {@code Token} made by a built-in descriptor is not copied: the {@code Token} refers to the window,
+ * which is then replaced instead of being reused when it is refilled.
  *
  * @since 0.1
  */
 public class Tokenizer {
+	/**
+	 * Default size of the window in which the source is read.
+	 *
+	 * @since 0.3
+	 */
+	public static final int DEFAULT_WINDOW_SIZE = 8192;
+
 	/**
 	 * {@code Tokenizer} mode in which the Tokenizer keeps accumulating code points since it cannot issue a
 	 * {@link Token}, but accumulating more code points may produce a {@code Token}.
@@ -75,18 +110,86 @@ public class Tokenizer {
 	private final LanguageDefinition def;
 
 	/**
-	 * The {@link Reader} from which the {@code Tokenizer} reads {@link Token}s.
+	 * The {@link Automaton} of {@link #def}, if one.
+	 *
+	 * @since 0.3
+	 */
+	private final Automaton automaton;
+
+	/**
+	 * The descriptors of {@link #def}, by priority.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenTypeDescriptor[] descriptors;
+
+	/**
+	 * The {@link DefinedTokenTrie} of {@link #def}.
+	 *
+	 * @since 0.3
+	 */
+	private final DefinedTokenTrie definedTokens;
+
+	/**
+	 * The {@link TokenMatcher}s of {@link #descriptors}, at the same indices. Descriptors merged in
+	 * {@link #definedTokens} have none.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenMatcher[] matchers;
+
+	/**
+	 * Flags indicating, at the same indices as {@link #descriptors}, whether a descriptor is built-in. The {@link Token}s
+	 * of built-in descriptors are made without checking their value again.
+	 *
+	 * @since 0.3
+	 */
+	private final boolean[] builtIn;
+
+	/**
+	 * Indices of the descriptors which are not merged in {@link #definedTokens}, in increasing order.
+	 *
+	 * @since 0.3
+	 */
+	private final int[] unmerged;
+
+	/**
+	 * Indices of the {@link TokenMatcher}s which have not reported {@link TokenMatcher#DEAD} for the value read so far,
+	 * in increasing order. Only the first {@link #liveCount} indices are meaningful.
+	 *
+	 * @since 0.3
+	 */
+	private final int[] live;
+
+	/**
+	 * Count of meaningful indices in {@link #live}.
+	 *
+	 * @since 0.3
+	 */
+	private int liveCount;
+
+	/**
+	 * The {@link Reader} from which the {@code Tokenizer} reads {@link Token}s, {@code null} if it reads them from
+	 * {@link #mapped}.
 	 *
 	 * @since 0.1
 	 */
-	private final Reader src;
+	private Reader src;
+
+	/**
+	 * The memory-mapped file from which the {@code Tokenizer} reads {@link Token}s, {@code null} if it reads them from
+	 * {@link #src}.
+	 *
+	 * @since 0.3
+	 */
+	private MappedSource mapped;
 
 	/**
 	 * Name of the source. Usually the relative path to the source file. It is primarily used in logs.
 	 *
 	 * @since 0.1
 	 */
-	private final String srcName;
+	private String srcName;
 
 	/**
 	 * The lookup code-point. It is used to know if the {@code Tokenizer} should continue to accumulate or stop to
@@ -97,11 +200,58 @@ public class Tokenizer {
 	private int next = -1;
 
 	/**
-	 * Buffer used to accumulate code-points.
+	 * Window in which the source is read. Only code-points from {@link #start} (or {@link #pos} if no {@link Token}
+	 * is being produced) to {@link #limit} are meaningful.
 	 *
-	 * @since 0.1
+	 * @since 0.3
+	 */
+	private char[] window;
+
+	/**
+	 * Size of the window requested when this {@code Tokenizer} has been created, which {@link #reset(Reader, String)}
+	 * provides again for sources of unknown length.
+	 *
+	 * @since 0.3
+	 */
+	private int windowSize;
+
+	/**
+	 * Position of {@link #next} in {@link #window}.
+	 *
+	 * @since 0.3
+	 */
+	private int pos;
+
+	/**
+	 * Count of code-points read from the source in {@link #window}.
+	 *
+	 * @since 0.3
+	 */
+	private int limit;
+
+	/**
+	 * Position in {@link #window} of the first code-point of the {@link Token} currently being produced, {@code -1}
+	 * if none. The value of the {@code Token} is sliced from it to {@link #pos}.
+	 *
+	 * @since 0.3
+	 */
+	private int start = -1;
+
+	/**
+	 * Flag indicating whether {@link Token}s have been sliced from {@link #window}, in which case its content must not
+	 * be overwritten.
+	 *
+	 * @since 0.3
 	 */
-	private StringBuilder buff;
+	private boolean shared;
+
+	/**
+	 * The {@link TokenizerPool} this {@code Tokenizer} has been acquired from, until it is released, {@code null}
+	 * otherwise.
+	 *
+	 * @since 0.3
+	 */
+	TokenizerPool pool;
 
 	/**
 	 * The current mode of this {@code Tokenizer}.
@@ -116,12 +266,61 @@ public class Tokenizer {
 	private int mode;
 
 	/**
-	 * The {@link Token} produced by {@link #finish}, if successful.
+	 * The {@link Token} produced by {@link #readToken()}, if successful.
 	 *
 	 * @since 0.1
 	 */
 	private Token result;
 
+	/**
+	 * Index in {@link #descriptors} of the descriptor of the token read by {@link #finish}, {@code -1} if none.
+	 *
+	 * @since 0.3
+	 */
+	private int resultType = -1;
+
+	/**
+	 * Flag indicating whether the descriptor of the token read by {@link #finish} is known to correspond to its value.
+	 *
+	 * @since 0.3
+	 */
+	private boolean resultVerified;
+
+	/**
+	 * Position in {@link #window} of the value of the token read by {@link #finish}.
+	 *
+	 * @since 0.3
+	 */
+	private int resultOffset;
+
+	/**
+	 * Length of the value of the token read by {@link #finish}.
+	 *
+	 * @since 0.3
+	 */
+	private int resultLength;
+
+	/**
+	 * The {@link TokenBuffer} being filled by {@link #readTokenBuffer()}, {@code null} if none.
+	 *
+	 * @since 0.3
+	 */
+	private TokenBuffer buffer;
+
+	/**
+	 * Position in {@link #window} following the last code-point appended to {@link #buffer}.
+	 *
+	 * @since 0.3
+	 */
+	private int flushed;
+
+	/**
+	 * Offset from the start of the source of the first code-point of {@link #window}.
+	 *
+	 * @since 0.3
+	 */
+	private int base;
+
 	/**
 	 * Line of the current character.
 	 *
@@ -151,7 +350,66 @@ public class Tokenizer {
 	private int startCol = col;
 
 	/**
-	 * Creates a new {@code Tokenizer}.
+	 * Offset from the start of the source of the first character of the {@link Token} currently being produced.
+	 *
+	 * @since 0.3
+	 */
+	private int startOffset;
+
+	/**
+	 * {@link LineIndex} of the source if positions are computed lazily, {@code null} if they are computed while
+	 * reading, in {@link #line} and {@link #col}.
+	 *
+	 * @since 0.3
+	 */
+	private LineIndex lineIndex;
+
+	/**
+	 * Flag indicating whether tokens have started to be read.
+	 *
+	 * @since 0.3
+	 */
+	private boolean reading;
+
+	/**
+	 * Flag indicating whether an error happened while reading tokens.
+	 *
+	 * @since 0.3
+	 */
+	private boolean failed;
+
+	/**
+	 * Flag indicating whether errors are kept in {@link #deferredError} instead of being logged.
+	 *
+	 * @since 0.3
+	 */
+	private boolean deferErrors;
+
+	/**
+	 * Message of the last error, if {@link #deferErrors} is set.
+	 *
+	 * @since 0.3
+	 */
+	private String deferredError;
+
+	/**
+	 * Greatest count of code-points examined past the end of a token to read it, as {@link #scan()} reads past the
+	 * accepted input before going back. The code-point following a token is always examined, and not counted.
+	 *
+	 * @since 0.3
+	 */
+	private int maxLookahead;
+
+	/**
+	 * Flag indicating whether the end of the source has been reached since it has been cleared. It tells, for a
+	 * source which may still grow, whether a token may continue past the code-points read so far.
+	 *
+	 * @since 0.3
+	 */
+	private boolean exhausted;
+
+	/**
+	 * Creates a new {@code Tokenizer}, reading the source in a window of {@link #DEFAULT_WINDOW_SIZE} code-points.
 	 *
 	 * @param definition definition of the language to create {@code Tokens} for.
 	 * @param source source from which the Tokenizer need to read data.
@@ -160,11 +418,374 @@ public class Tokenizer {
 	 * @since 0.1
 	 */
 	public Tokenizer(LanguageDefinition definition, Reader source, String sourceName) {
+		this(definition, source, sourceName, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Creates a new {@code Tokenizer}.
+	 *
+	 * @param definition definition of the language to create {@code Tokens} for.
+	 * @param source source from which the Tokenizer need to read data.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @param windowSize initial count of code-points read from the source at once. The window grows if a single
+	 * {@link Token} is longer.
+	 *
+	 * @throws IllegalArgumentException if {@code windowSize} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	public Tokenizer(LanguageDefinition definition, Reader source, String sourceName, int windowSize) {
+		this(definition, source, null, sourceName, windowSize);
+	}
+
+	/**
+	 * Creates a new {@code Tokenizer} reading either from a {@link Reader} or from a memory-mapped file.
+	 *
+	 * @param definition definition of the language to create {@code Tokens} for.
+	 * @param source source from which the Tokenizer need to read data, {@code null} if {@code mapped} is used.
+	 * @param mapped memory-mapped file from which the Tokenizer need to read data, {@code null} if {@code source} is
+	 * used.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @param windowSize initial count of code-points read from the source at once.
+	 *
+	 * @throws IllegalArgumentException if {@code windowSize} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	private Tokenizer(LanguageDefinition definition, Reader source, MappedSource mapped, String sourceName, int windowSize) {
+		this(definition, source, mapped, sourceName,
+				newWindow(mapped == null ? windowSize : windowSize(mapped.getSize(), windowSize)));
+		this.windowSize = windowSize;
+		// the first code-point is read into next.
+		read();
+	}
+
+	/**
+	 * Creates a new {@code Tokenizer} reading {@code text} from {@code offset}, as a speculative lexer of a chunk of
+	 * the source. {@code text} is used as the window, so nothing is copied, and errors are not logged but kept until
+	 * {@link #getDeferredError()} is called.
+	 *
+	 * @param definition definition of the language to create {@code Tokens} for.
+	 * @param text content of the whole source.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param offset offset of the first code-point to read.
+	 * @param line line of the code-point preceding {@code offset}, {@code 1} if none.
+	 * @param column column of the code-point preceding {@code offset}, {@code 0} if none.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 *
+	 * @since 0.3
+	 *
+	 * @see ParallelTokenizer
+	 */
+	Tokenizer(LanguageDefinition definition, char[] text, int length, int offset, int line, int column,
+			String sourceName) {
+		this(definition, null, null, sourceName, text);
+		reset(text, length, offset, line, column);
+	}
+
+	/**
+	 * Creates a new {@code Tokenizer} reading {@code text} after a token, like
+	 * {@link #Tokenizer(LanguageDefinition, char[], int, int, int, int, String)}.
+	 *
+	 * @param definition definition of the language to create {@code Tokens} for.
+	 * @param text content of the whole source.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param tokenStart offset of the first code-point of the token.
+	 * @param tokenEnd offset following the last code-point of the token, from which reading starts.
+	 * @param line line of the first code-point of the token.
+	 * @param column column of the first code-point of the token.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @return the created {@code Tokenizer}.
+	 *
+	 * @since 0.3
+	 */
+	static Tokenizer resumeAfter(LanguageDefinition definition, char[] text, int length, int tokenStart, int tokenEnd,
+			int line, int column, String sourceName) {
+		return new Tokenizer(definition, null, null, sourceName, text)
+				.resetAfter(text, length, tokenStart, tokenEnd, line, column);
+	}
+
+	/**
+	 * Creates a new {@code Tokenizer} without reading the first code-point.
+	 *
+	 * @param definition definition of the language to create {@code Tokens} for.
+	 * @param source source from which the Tokenizer need to read data, {@code null} if it is not a {@link Reader}.
+	 * @param mapped memory-mapped file from which the Tokenizer need to read data, {@code null} if it is not a mapped
+	 * file.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @param window window in which the source is read.
+	 *
+	 * @since 0.3
+	 */
+	private Tokenizer(LanguageDefinition definition, Reader source, MappedSource mapped, String sourceName,
+			char[] window) {
 		this.def = definition;
+		this.automaton = definition.getAutomaton();
+		this.descriptors = definition.getTokenTypeDescriptors();
+		this.definedTokens = definition.getDefinedTokenTrie();
+		this.matchers = new TokenMatcher[descriptors.length];
+		this.builtIn = new boolean[descriptors.length];
+		this.live = new int[descriptors.length];
+
+		var count = 0;
+		for(int i = 0; i < descriptors.length; i++) {
+			builtIn[i] = StateMachines.of(descriptors[i]) != null;
+			if(definedTokens.isMerged(i)) continue;
+
+			matchers[i] = definition.newMatcher(i);
+			live[count++] = i;
+		}
+		this.unmerged = Arrays.copyOf(live, count);
 		this.src = source;
+		this.mapped = mapped;
 		this.srcName = sourceName;
-		buff = new StringBuilder();
+		this.window = window;
+		this.windowSize = Math.max(window.length, DEFAULT_WINDOW_SIZE);
+		this.pos = -1;
+	}
+
+	/**
+	 * Allocates the window of a new {@code Tokenizer}.
+	 *
+	 * @param windowSize size of the window.
+	 * @return the window.
+	 *
+	 * @throws IllegalArgumentException if {@code windowSize} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	private static char[] newWindow(int windowSize) {
+		if(windowSize <= 0) throw new IllegalArgumentException("Window size must be positive: " + windowSize);
+		return new char[windowSize];
+	}
+
+	/**
+	 * Gets the size of a window holding a whole source of known length, so it is read at once without allocating
+	 * more than needed, as well as the room a surrogate pair needs.
+	 *
+	 * @param length count of code-points of the source, or an upper bound of it.
+	 * @param windowSize maximum size of the window.
+	 * @return the size of the window.
+	 *
+	 * @since 0.3
+	 */
+	static int windowSize(long length, int windowSize) {
+		return (int) Math.min(windowSize, length + 2);
+	}
+
+	/**
+	 * Creates a new {@code Tokenizer} reading the UTF-8 file at {@code path} through memory mapping, with a window of
+	 * {@link #DEFAULT_WINDOW_SIZE} code-points, or just large enough for the file if it is smaller. The file is decoded
+	 * incrementally from the mapped memory, without going through a {@link Reader}.
+	 *
+	 * @param definition definition of the language to create {@code Tokens} for.
+	 * @param path path of the file to read. It is also the name of the source.
+	 * @return the created {@code Tokenizer}.
+	 *
+	 * @throws IOException if the file cannot be mapped.
+	 *
+	 * @since 0.3
+	 */
+	public static Tokenizer open(LanguageDefinition definition, Path path) throws IOException {
+		return open(definition, path, DEFAULT_WINDOW_SIZE);
+	}
+
+	/**
+	 * Creates a new {@code Tokenizer} reading the UTF-8 file at {@code path} through memory mapping. The file is
+	 * decoded incrementally from the mapped memory, without going through a {@link Reader}.
+	 *
+	 * @param definition definition of the language to create {@code Tokens} for.
+	 * @param path path of the file to read. It is also the name of the source.
+	 * @param windowSize initial count of code-points decoded at once, unless the file is smaller. The window grows if a
+	 * single {@link Token} is longer.
+	 * @return the created {@code Tokenizer}.
+	 *
+	 * @throws IOException if the file cannot be mapped.
+	 * @throws IllegalArgumentException if {@code windowSize} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	public static Tokenizer open(LanguageDefinition definition, Path path, int windowSize) throws IOException {
+		return new Tokenizer(definition, null, new MappedSource(path), path.toString(), windowSize);
+	}
+
+	/**
+	 * Resets this {@code Tokenizer} to read {@link Token}s from another source, as if it had just been created. The
+	 * {@link TokenMatcher}s are reused, as well as the choice of lazy positions. {@code Token}s already read remain
+	 * valid, so the window is only reused if none of them has been sliced from it, and if it does not hold a source
+	 * read in memory.
+	 *
+	 * @param source source from which the Tokenizer need to read data.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @return the current instance.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenizerPool
+	 */
+	public Tokenizer reset(Reader source, String sourceName) {
+		// tokens sliced from the window keep it, and a source read in memory is not ours to overwrite.
+		if(shared || (src == null && mapped == null) || window.length < windowSize) window = new char[windowSize];
+		shared = false;
+
+		src = source;
+		mapped = null;
+		srcName = sourceName;
+		if(lineIndex != null) lineIndex = new LineIndex();
+		deferErrors = false;
+		clear();
+
+		read();
+		return this;
+	}
+
+	/**
+	 * Resets this {@code Tokenizer} to read {@code text} from {@code offset}, like
+	 * {@link #Tokenizer(LanguageDefinition, char[], int, int, int, int, String)} does, reusing its
+	 * {@link TokenMatcher}s. {@code text} becomes the window.
+	 *
+	 * @param text content of the whole source.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param offset offset of the first code-point to read.
+	 * @param line line of the code-point preceding {@code offset}, {@code 1} if none.
+	 * @param column column of the code-point preceding {@code offset}, {@code 0} if none.
+	 * @return the current instance.
+	 *
+	 * @since 0.3
+	 */
+	Tokenizer reset(char[] text, int length, int offset, int line, int column) {
+		window = text;
+		shared = false;
+		src = null;
+		mapped = null;
+		lineIndex = null;
+		deferErrors = true;
+		clear();
+
+		this.limit = length;
+		this.pos = offset - 1;
+		this.line = line;
+		this.col = column;
+		// the previous code-point tells whether a '\n' at offset ends a "\r\n" line break.
+		this.next = offset > 0 ? text[offset - 1] : -1;
 		read();
+		return this;
+	}
+
+	/**
+	 * Resets this {@code Tokenizer} to read {@code text} after a token, like
+	 * {@link #resumeAfter(LanguageDefinition, char[], int, int, int, int, int, String)} does, reusing its
+	 * {@link TokenMatcher}s.
+	 *
+	 * @param text content of the whole source.
+	 * @param length count of code-points of the source in {@code text}.
+	 * @param tokenStart offset of the first code-point of the token.
+	 * @param tokenEnd offset following the last code-point of the token, from which reading starts.
+	 * @param line line of the first code-point of the token.
+	 * @param column column of the first code-point of the token.
+	 * @return the current instance.
+	 *
+	 * @since 0.3
+	 */
+	Tokenizer resetAfter(char[] text, int length, int tokenStart, int tokenEnd, int line, int column) {
+		// the position of the last code-point of the token is needed to resume after it.
+		for(int i = tokenStart + 1; i < tokenEnd; i++) {
+			if(text[i] == '\r' || (text[i] == '\n' && text[i - 1] != '\r')) {
+				line++;
+				column = 0;
+			} else if(text[i] != '\n') {
+				column++;
+			}
+		}
+		return reset(text, length, tokenEnd, line, column);
+	}
+
+	/**
+	 * Clears the reading state of this {@code Tokenizer}, so it reads its new source as if it had just been created.
+	 *
+	 * @since 0.3
+	 */
+	private void clear() {
+		next = -1;
+		pos = -1;
+		limit = 0;
+		start = -1;
+		base = 0;
+		mode = MODE_STANDBY;
+		result = null;
+		resultType = -1;
+		buffer = null;
+		line = 1;
+		col = 0;
+		startLine = line;
+		startCol = col;
+		startOffset = 0;
+		reading = false;
+		failed = false;
+		deferredError = null;
+		maxLookahead = 0;
+		exhausted = false;
+	}
+
+	/**
+	 * Gets the {@link LanguageDefinition} used to generate {@link Token}s.
+	 *
+	 * @return the {@code LanguageDefinition}.
+	 *
+	 * @since 0.3
+	 */
+	public LanguageDefinition getDefinition() {
+		return def;
+	}
+
+	/**
+	 * Gets the name of the source.
+	 *
+	 * @return the name of the source.
+	 *
+	 * @since 0.3
+	 */
+	public String getSourceName() {
+		return srcName;
+	}
+
+	/**
+	 * Sets whether this {@code Tokenizer} computes the lines and columns of {@link Token}s lazily. When it does, it
+	 * only keeps track of offsets while reading, and records where lines start in a {@link LineIndex} as blocks of the
+	 * source are read. Lines and columns are then computed from it by {@link Token#getLine()},
+	 * {@link Token#getColumn()} and their {@link TokenBuffer} counterparts.
+	 *
+	 * @param lazy whether to compute positions lazily.
+	 * @return the current instance.
+	 *
+	 * @throws IllegalStateException if tokens have already been read.
+	 *
+	 * @since 0.3
+	 */
+	public Tokenizer setLazyPositions(boolean lazy) {
+		if(reading) throw new IllegalStateException("Tokens have already been read");
+
+		if(!lazy) {
+			lineIndex = null;
+		} else if(lineIndex == null) {
+			// nothing has been discarded yet, the window starts at the start of the source.
+			lineIndex = new LineIndex();
+			lineIndex.scan(window, 0, limit, 0);
+		}
+		return this;
+	}
+
+	/**
+	 * Gets the {@link LineIndex} of the source, complete up to the code-points read so far.
+	 *
+	 * @return the {@code LineIndex}, {@code null} if positions are not computed lazily.
+	 *
+	 * @since 0.3
+	 *
+	 * @see #setLazyPositions(boolean)
+	 */
+	public LineIndex getLineIndex() {
+		return lineIndex;
 	}
 
 	/**
@@ -186,106 +807,500 @@ public class Tokenizer {
 		return tokens.toArray(new Token[0]);
 	}
 
+	/**
+	 * Returns an {@link Iterator} reading {@link Token}s from the source as they are requested. It ends at the end of
+	 * the source, or at the first error, which can be told apart with {@link #hasFailed()}. Tokens read by the
+	 * {@code Iterator} are not read again by other methods of this {@code Tokenizer}.
+	 *
+	 * @return the {@code Iterator}.
+	 *
+	 * @since 0.3
+	 */
+	public Iterator<Token> iterator() {
+		return new TokenIterator();
+	}
+
+	/**
+	 * Returns a {@link Spliterator} reading {@link Token}s from the source as they are requested, like
+	 * {@link #iterator()}.
+	 *
+	 * @return the {@code Spliterator}.
+	 *
+	 * @since 0.3
+	 */
+	public Spliterator<Token> spliterator() {
+		return Spliterators.spliteratorUnknownSize(iterator(), Spliterator.ORDERED | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Returns a sequential {@link Stream} reading {@link Token}s from the source as they are requested, like
+	 * {@link #iterator()}. Short-circuiting operations stop reading the source as soon as they are done.
+	 *
+	 * @return the {@code Stream}.
+	 *
+	 * @since 0.3
+	 */
+	public Stream<Token> stream() {
+		return StreamSupport.stream(spliterator(), false);
+	}
+
+	/**
+	 * Returns a {@link TokenCursor} reading {@link Token}s from the source one at a time, in place. Tokens read by the
+	 * {@code TokenCursor} are not read again by other methods of this {@code Tokenizer}.
+	 *
+	 * @return the {@code TokenCursor}.
+	 *
+	 * @since 0.3
+	 */
+	public TokenCursor cursor() {
+		return new TokenCursor(this);
+	}
+
+	/**
+	 * Checks if the end of the source has been reached. It may have been reached after an error, see
+	 * {@link #hasFailed()}.
+	 *
+	 * @return {@code true} if the end of the source has been reached, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public boolean isAtEnd() {
+		return mode == MODE_EOS;
+	}
+
+	/**
+	 * Checks if an error happened while reading tokens: unexpected character or end of source, unrecognized token,
+	 * token refused by its descriptor, or failure to read the source. Errors are logged when they happen.
+	 *
+	 * @return {@code true} if an error happened, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
 	/**
 	 * Reads one {@link Token} from the source.
 	 *
-	 * @return read {@code Token}, {@code null} if an error happened.
+	 * @return read {@code Token}, {@code null} if an error happened or the end of the source has been reached, which
+	 * can be told apart with {@link #hasFailed()}.
 	 *
 	 * @since 0.1
 	 */
 	public Token readToken() {
-		if(mode == MODE_EOS) return null;
+		result = advance() ? makeResult() : null;
+		// the descriptor refused to make the token.
+		if(result == null && mode == MODE_DONE) failed = true;
+
+		// the value of the token is only created if it is logged.
+		if(Logger.isLoggable(Logger.LogLevel.DEBUG)) {
+			if(result != null) {
+				debug("TOKEN '" + result.getValue() + "' (" + result.getDescriptor().getName() + ")");
+			} else {
+				debug("TOKEN null (none)");
+			}
+		}
+
+		return result;
+	}
+
+	/**
+	 * Reads all remaining tokens from the source into a {@link TokenBuffer}, stopping at the end of the source or at
+	 * the first error, like {@link #readAllTokens()}. No {@link Token} is created. After an error, the rest of the
+	 * source is still read into the {@code TokenBuffer}, so its tokens can be read again once the error is fixed.
+	 *
+	 * @return the read tokens.
+	 *
+	 * @since 0.3
+	 */
+	public TokenBuffer readTokenBuffer() {
+		var tokens = new TokenBuffer(def, srcName, base + pos, lineIndex);
+		buffer = tokens;
+		flushed = pos;
+
+		while(advance()) {
+			tokens.add(resultType, base + resultOffset, base + resultOffset + resultLength, startLine, startCol);
+
+			if(Logger.isLoggable(Logger.LogLevel.DEBUG)) {
+				debug("TOKEN '" + new String(window, resultOffset, resultLength) + "' ("
+						+ descriptors[resultType].getName() + ")");
+			}
+		}
+
+		tokens.setComplete(mode == MODE_EOS && !failed);
+
+		// the rest of the content is kept after an error, so the tokens can be read again once it is fixed.
+		while(next != -1) {
+			read();
+		}
+
+		tokens.appendText(window, flushed, limit - flushed);
+		tokens.setLookahead(maxLookahead);
+		// the content of the source is complete if it has been read entirely.
+		tokens.setWholeSource(tokens.getTextStart() == 0);
+		buffer = null;
+		return tokens;
+	}
+
+	/**
+	 * Reads all remaining tokens from the source, passing each of them to {@code sink}, and stops at the end of the
+	 * source or at the first error, like {@link #readAllTokens()}. No object is created per token, and
+	 * {@link TokenTypeDescriptor#makeToken} is not called.
+	 *
+	 * @param sink receiver of the tokens.
+	 *
+	 * @since 0.3
+	 *
+	 * @see #hasFailed()
+	 */
+	public void tokenize(TokenSink sink) {
+		while(readNext(sink)) {
+			// tokens are passed to the sink.
+		}
+	}
+
+	/**
+	 * Reads the next token from the source, passing it to {@code sink}.
+	 *
+	 * @param sink receiver of the token.
+	 * @return {@code true} if a token has been read, {@code false} if an error happened or the end of the source has
+	 * been reached.
+	 *
+	 * @since 0.3
+	 */
+	boolean readNext(TokenSink sink) {
+		if(!advance()) return false;
+
+		sink.accept(resultType, window, resultOffset, resultOffset + resultLength, startOffset, getLine(true),
+				getColumn(true));
+		return true;
+	}
+
+	/**
+	 * Reads the next token from the source into {@code tokens}, unless it starts at or after {@code stopOffset}.
+	 * Reading can then be resumed with a further {@code stopOffset}.
+	 *
+	 * @param tokens buffer to add the token to. Its content is not appended.
+	 * @param stopOffset offset from which tokens are not read.
+	 * @return {@code true} if a token has been read, {@code false} if reading stopped, an error happened or the end of
+	 * the source has been reached.
+	 *
+	 * @since 0.3
+	 *
+	 * @see #getTokenStart()
+	 */
+	boolean readNext(TokenBuffer tokens, int stopOffset) {
+		if(mode != MODE_EOS && peekOffset() >= stopOffset) {
+			startOffset = base + pos;
+			return false;
+		}
+		if(!advance()) return false;
+
+		tokens.add(resultType, base + resultOffset, base + resultOffset + resultLength, startLine, startCol);
+		return true;
+	}
+
+	/**
+	 * Skips whitespaces and comments, and gets the offset at which the next token starts.
+	 *
+	 * @return the offset of the next token, or of the end of the source.
+	 *
+	 * @since 0.3
+	 */
+	int peekOffset() {
+		skip();
+		return base + pos;
+	}
+
+	/**
+	 * Gets the offset of the last token read, attempted or stopped at by {@link #readNext}. After an error, it is the
+	 * offset of the token which could not be read; at the end of the source, it is the length of the source.
+	 *
+	 * @return the offset of the token.
+	 *
+	 * @since 0.3
+	 */
+	int getTokenStart() {
+		return startOffset;
+	}
+
+	/**
+	 * Gets the greatest count of code-points examined past the end of a token to read it, not counting the code-point
+	 * following it.
+	 *
+	 * @return the greatest look-ahead.
+	 *
+	 * @since 0.3
+	 */
+	int getMaxLookahead() {
+		return maxLookahead;
+	}
+
+	/**
+	 * Checks if the end of the source has been reached since {@link #clearExhausted()} has been called.
+	 *
+	 * @return {@code true} if the end of the source has been reached, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	boolean isExhausted() {
+		return exhausted;
+	}
+
+	/**
+	 * Clears the flag returned by {@link #isExhausted()}.
+	 *
+	 * @since 0.3
+	 */
+	void clearExhausted() {
+		exhausted = false;
+	}
+
+	/**
+	 * Gets the message of the last error, which has not been logged since this {@code Tokenizer} reads a chunk of the
+	 * source speculatively.
+	 *
+	 * @return the message, {@code null} if no error happened or errors are logged.
+	 *
+	 * @since 0.3
+	 */
+	String getDeferredError() {
+		return deferredError;
+	}
+
+	/**
+	 * Reads the next token from the source, without making a {@link Token} of it.<br><br>
+	 *
+	 * This method updates the state of this {@code Tokenizer} the same way {@link #finish} does.
+	 *
+	 * @return {@code true} if a token has been read, {@code false} if an error happened or the end of the source has
+	 * been reached.
+	 *
+	 * @since 0.3
+	 */
+	private boolean advance() {
+		if(mode == MODE_EOS) return false;
 
 		mode = MODE_STANDBY;
-		result = null;
+		resultType = -1;
+		reading = true;
+		skip();
+
+		if(lineIndex == null) {
+			startCol = col;
+			startLine = line;
+		}
+		start = pos;
+		startOffset = base + pos;
 
-		var loop = 0;
+		if(automaton != null) {
+			scan();
+		} else {
+			match();
+		}
+
+		return resultType >= 0;
+	}
 
+	/**
+	 * Skips whitespaces and comments until the next token.
+	 *
+	 * @since 0.3
+	 */
+	private void skip() {
 		do {
 			while (Character.isWhitespace(next)) {
 				read();
 			}
 
 			if (next == '#') {
-				while (next != '\n' && next != '\r') {
-					if (loop > 1000) break;
+				while (next != '\n' && next != '\r' && next != -1) {
 					read();
-					loop++;
 				}
-				read();
 			}
 		} while (Character.isWhitespace(next) || next == '#');
+	}
 
-		startCol = col;
-		startLine = line;
-		while(mode == MODE_STANDBY) {
-			if(next != -1) {
-				buff.appendCodePoint(next);
-			} else {
-				finish();
-			}
-
-			if(mayToken()) {
-				read();
-				continue;
-			}
-
-			buff.setLength(buff.length() - 1);
+	/**
+	 * Makes the {@link Token} read by {@link #finish}.
+	 *
+	 * @return the {@code Token}, {@code null} if the descriptor refused to make it.
+	 *
+	 * @since 0.3
+	 */
+	private Token makeResult() {
+		var ttd = descriptors[resultType];
 
-			finish();
+		if(!resultVerified) {
+			var made = ttd.makeToken(new String(window, resultOffset, resultLength), srcName, getLine(true),
+					getColumn(true));
+			// subclasses of Token cannot be copied, and Tokens of another descriptor do not have its type id.
+			if(made == null || made.getClass() != Token.class || made.getDescriptor() != ttd) return made;
+			return new Token(made, resultType);
 		}
 
-		if(result != null) {
-			debug("TOKEN '" + result.getValue() + "' (" + result.getDescriptor().getName() + ")");
-		} else {
-			debug("TOKEN null (none)");
+		if(ttd.getClass() == DefinedTokenTypeDescriptor.class) {
+			// the value is known already.
+			var value = ((DefinedTokenTypeDescriptor) ttd).getValue();
+			return new Token(ttd, resultType, value, null, 0, value.length(), srcName, startLine, startCol, lineIndex,
+					startOffset);
 		}
 
-		return result;
+		shared = true;
+		return new Token(ttd, resultType, null, window, resultOffset, resultLength, srcName, startLine, startCol,
+				lineIndex, startOffset);
 	}
 
 	/**
-	 * Convenience method which checks whether the buffer content correspond to a {@link universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor}.
-	 *
-	 * @return {@code true} if a {@code TokenTypeDescriptor} correspond to the buffer content, {@code false} otherwise.
+	 * Reads the longest input accepted by {@link #automaton} and tries to finalize a {@link Token} from it.<br><br>
 	 *
-	 * @since 0.1
+	 * This method updates the state of this {@code Tokenizer} the same way {@link #finish} does.
 	 *
-	 * @see LanguageDefinition#correspondToken(String)
+	 * @since 0.3
 	 */
-	private boolean isToken() {
-		return def.correspondToken(buff.toString());
+	private void scan() {
+		var state = automaton.getInitialState();
+		var accepted = -1;
+		var acceptedLength = 0;
+		var acceptedLine = line;
+		var acceptedCol = col;
+
+		while(next != -1) {
+			state = automaton.next(state, (char) next);
+			if(state == Automaton.DEAD) break;
+
+			read();
+
+			var index = automaton.getAcceptedIndex(state);
+			if(index >= 0) {
+				accepted = index;
+				acceptedLength = pos - start;
+				acceptedLine = line;
+				acceptedCol = col;
+			}
+		}
+
+		if(accepted >= 0 && pos - (start + acceptedLength) > maxLookahead) {
+			maxLookahead = pos - (start + acceptedLength);
+		}
+		if(accepted >= 0 && start + acceptedLength < pos) {
+			// code-points read past the accepted input are still in the window, from the start of the token.
+			pos = start + acceptedLength;
+			next = window[pos];
+			line = acceptedLine;
+			col = acceptedCol;
+		}
+
+		// the automaton only holds built-in descriptors, so there is no need to check the content again.
+		finish(accepted, true);
 	}
 
 	/**
-	 * Convenience method which checks whether the buffer content may correspond to a {@link universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor}.
-	 *
-	 * @return {@code true} if a {@code TokenTypeDescriptor} may correspond to the buffer content, {@code false} otherwise.
-	 *
-	 * @since 0.1
+	 * Feeds code-points to {@link #definedTokens} and {@link #matchers} until none of them may correspond to the buffer
+	 * content, and tries to finalize a {@link Token} from the longest accepted input, the same way {@link #scan()}
+	 * does. Matchers which do not report accepted inputs while being fed only check the whole content, once.
 	 *
-	 * @see LanguageDefinition#mayCorrespondToken(String)
+	 * @since 0.3
 	 */
-	private boolean mayToken() {
-		return def.mayCorrespondToken(buff.toString());
+	private void match() {
+		for(var index : unmerged) {
+			matchers[index].reset();
+		}
+		System.arraycopy(unmerged, 0, live, 0, unmerged.length);
+		liveCount = unmerged.length;
+
+		var node = definedTokens.size() > 0 ? DefinedTokenTrie.ROOT : DefinedTokenTrie.DEAD;
+		var accepted = -1;
+		var acceptedLength = 0;
+		var acceptedLine = line;
+		var acceptedCol = col;
+
+		while(next != -1) {
+			var c = (char) next;
+			var count = 0;
+			var first = -1;
+
+			if(node != DefinedTokenTrie.DEAD) {
+				node = definedTokens.next(node, c);
+				first = definedTokens.getAccepted(node);
+			}
+
+			for(int i = 0; i < liveCount; i++) {
+				var index = live[i];
+				var status = matchers[index].feed(c);
+
+				if(status == TokenMatcher.DEAD) continue;
+				if(status == TokenMatcher.ACCEPTING && (first < 0 || index < first)) first = index;
+				live[count++] = index;
+			}
+
+			if(count == 0 && node == DefinedTokenTrie.DEAD) break;
+
+			liveCount = count;
+			read();
+
+			if(first >= 0) {
+				accepted = first;
+				acceptedLength = pos - start;
+				acceptedLine = line;
+				acceptedCol = col;
+			}
+		}
+
+		// the live matchers are those of the whole content, the ones which did not report it accepted check it now.
+		var length = pos - start;
+		if(length > 0) {
+			var whole = acceptedLength == length ? accepted : -1;
+			for(int i = 0; i < liveCount && (whole < 0 || live[i] < whole); i++) {
+				if(matchers[live[i]].accepts()) whole = live[i];
+			}
+
+			if(whole >= 0) {
+				accepted = whole;
+				acceptedLength = length;
+			}
+		}
+
+		if(accepted >= 0 && length - acceptedLength > maxLookahead) {
+			maxLookahead = length - acceptedLength;
+		}
+		if(accepted >= 0 && acceptedLength < length) {
+			// code-points read past the accepted input are still in the window, from the start of the token.
+			pos = start + acceptedLength;
+			next = window[pos];
+			line = acceptedLine;
+			col = acceptedCol;
+		}
+
+		finish(accepted, accepted >= 0 && builtIn[accepted]);
 	}
 
 	/**
-	 * Tries to finalize a {@link Token} from the buffer content.<br><br>
+	 * Tries to finalize a token from the buffer content.<br><br>
 	 *
 	 * This method updates the state of this {@code Tokenizer} according to the buffer content and the next code-point
-	 * ({@link #buff} and {@link #next} respectively).
+	 * ({@link #window} from {@link #start} to {@link #pos}, and {@link #next} respectively). If successful, the token
+	 * is described by {@link #resultType}, {@link #resultVerified}, {@link #resultOffset} and {@link #resultLength}.
+	 *
+	 * @param type index in {@link #descriptors} of the descriptor corresponding to the buffer content, {@code -1} if
+	 * none.
+	 * @param verified flag indicating whether the descriptor is known to correspond to the buffer content, in which
+	 * case the {@link Token} is made without calling {@link TokenTypeDescriptor#makeToken}.
 	 *
 	 * @since 0.1
 	 */
-	private void finish() {
-		final var content = buff.toString();
-		if(content.length() == 0) {
+	private void finish(int type, boolean verified) {
+		final var length = pos - start;
+		start = -1;
+
+		if(length == 0) {
 			if(next == -1) {
 				mode = MODE_EOS;
 				return;
 			}
 			mode = MODE_ERROR;
+			failed = true;
 			logerr(
 					new StringBuilder("unexpected character: ").appendCodePoint(next).toString(),
 					false
@@ -293,50 +1308,116 @@ public class Tokenizer {
 			return;
 		}
 
-		var ttd = def.getTokenTypeDescriptorByValue(content);
+		final var offset = pos - length;
 
-		if(ttd == null) {
-			result = null;
+		if(type < 0) {
 			if(next == -1) {
 				logerr("unexpected end of file", false);
 				mode = MODE_EOS;
+				failed = true;
 				return;
 			}
-			logerr("unrecognized token: " + content);
+			logerr("unrecognized token: " + new String(window, offset, length));
 			mode = MODE_ERROR;
+			failed = true;
 		} else {
-			result = ttd.makeToken(content, srcName, startLine, startCol);
+			resultType = type;
+			resultVerified = verified;
+			resultOffset = offset;
+			resultLength = length;
 			mode = MODE_DONE;
 		}
-
-		buff.setLength(0);
 	}
 
 	/**
 	 * Reads a code-point from the source ({@link #src}), and assign it to {@link #next}.<br>
-	 * This method updates the line, and the column counters according to what has been read.
+	 * This method updates the line, and the column counters according to what has been read, unless positions are
+	 * computed lazily.
 	 *
 	 * @since 0.1
 	 */
 	private void read() {
 		int curr = -1;
-		try {
-			curr = src.read();
-		} catch (IOException e) {
-			e.printStackTrace();
+		if(pos < limit) pos++;
+		if(pos < limit || fill()) {
+			curr = window[pos];
+		} else {
+			exhausted = true;
 		}
 
-		if((curr == '\n' && next != '\r') || curr == '\r') {
-			col = 0;
-			line++;
-		} else {
-			if(curr != '\n')
-				col++;
+		// with lazy positions, line breaks are recorded by fill.
+		if(lineIndex == null) {
+			if((curr == '\n' && next != '\r') || curr == '\r') {
+				col = 0;
+				line++;
+			} else {
+				if(curr != '\n')
+					col++;
+			}
 		}
 
 		next = curr;
 	}
 
+	/**
+	 * Reads the next block of the source in {@link #window}, after {@link #limit}. Code-points before the
+	 * {@link Token} currently being produced are discarded to make room, and the window grows if the {@code Token}
+	 * fills it, leaving less room than a surrogate pair. If {@code Token}s have been sliced from the window, a new one
+	 * is used instead.
+	 *
+	 * @return {@code true} if code-points have been read, {@code false} if the end of the source has been reached.
+	 *
+	 * @since 0.3
+	 */
+	private boolean fill() {
+		// the whole source is already in the window.
+		if(src == null && mapped == null) return false;
+
+		var keep = start < 0 ? pos : start;
+
+		if(buffer != null) {
+			buffer.appendText(window, flushed, limit - flushed);
+			flushed = limit - keep;
+		}
+
+		var size = window.length;
+		if(limit - keep > size - 2) {
+			size = Math.max(size * 2, limit - keep + 2);
+		}
+
+		if(shared || size != window.length) {
+			// tokens sliced from the window keep it, so the remaining code-points are moved to a new one.
+			var moved = new char[size];
+			System.arraycopy(window, keep, moved, 0, limit - keep);
+			window = moved;
+			shared = false;
+		} else if(keep > 0) {
+			System.arraycopy(window, keep, window, 0, limit - keep);
+		}
+		limit -= keep;
+		pos -= keep;
+		base += keep;
+		if(start >= 0) start -= keep;
+
+		var count = -1;
+		try {
+			if(mapped != null) {
+				count = mapped.read(window, limit, window.length - limit);
+			} else {
+				count = src.read(window, limit, window.length - limit);
+			}
+		} catch (IOException e) {
+			Logger.error(srcName + ": " + e);
+			failed = true;
+		}
+
+		if(count <= 0) return false;
+
+		if(lineIndex != null) lineIndex.scan(window, limit, limit + count, base + limit);
+		limit += count;
+		return true;
+	}
+
 	/**
 	 * Convenience method to log a debug message using {@link #startLine} and {@link #startCol} as the line and column
 	 * of the message.
@@ -384,6 +1465,10 @@ public class Tokenizer {
 	 * @since 0.2
 	 */
 	private void logerr(String message, boolean startOfToken) {
+		if(deferErrors) {
+			deferredError = getLogMsg(message, startOfToken);
+			return;
+		}
 		Logger.error(getLogMsg(message, startOfToken));
 	}
 
@@ -398,6 +1483,74 @@ public class Tokenizer {
 	 * @since 0.2
 	 */
 	private String getLogMsg(String message, boolean startOfToken) {
-		return srcName + ":" + (startOfToken ? startLine : line) + ":" + (startOfToken ? startCol : col) + ": " + message;
+		return srcName + ":" + getLine(startOfToken) + ":" + getColumn(startOfToken) + ": " + message;
+	}
+
+	/**
+	 * Gets the line of the first character of the {@link Token} currently being produced, or of the current character.
+	 *
+	 * @param startOfToken indicates whether to get the line of the first character of the {@code Token} or of the
+	 * current character ({@code true} and {@code false} respectively).
+	 * @return the line.
+	 *
+	 * @since 0.3
+	 */
+	private int getLine(boolean startOfToken) {
+		if(lineIndex != null) return lineIndex.getLine(startOfToken ? startOffset : base + pos);
+		return startOfToken ? startLine : line;
+	}
+
+	/**
+	 * Gets the column of the first character of the {@link Token} currently being produced, or of the current
+	 * character.
+	 *
+	 * @param startOfToken indicates whether to get the column of the first character of the {@code Token} or of the
+	 * current character ({@code true} and {@code false} respectively).
+	 * @return the column.
+	 *
+	 * @since 0.3
+	 */
+	private int getColumn(boolean startOfToken) {
+		if(lineIndex != null) return lineIndex.getColumn(startOfToken ? startOffset : base + pos);
+		return startOfToken ? startCol : col;
+	}
+
+	/**
+	 * {@link Iterator} returned by {@link #iterator()}.
+	 *
+	 * @since 0.3
+	 */
+	private final class TokenIterator implements Iterator<Token> {
+		/**
+		 * The {@link Token} to return next, {@code null} if it has not been read yet.
+		 *
+		 * @since 0.3
+		 */
+		private Token pending;
+
+		/**
+		 * Flag indicating whether the end of the source or an error has been reached.
+		 *
+		 * @since 0.3
+		 */
+		private boolean done;
+
+		@Override
+		public boolean hasNext() {
+			if(pending == null && !done) {
+				pending = readToken();
+				done = pending == null;
+			}
+			return pending != null;
+		}
+
+		@Override
+		public Token next() {
+			if(!hasNext()) throw new NoSuchElementException();
+
+			var token = pending;
+			pending = null;
+			return token;
+		}
 	}
 }
@@ -0,0 +1,142 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import universe.lambda.jlcl.LanguageDefinition;
+
+import java.io.Reader;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * Bounded pool of {@link Tokenizer}s of a single {@link LanguageDefinition}, so that their windows and
+ * {@link universe.lambda.jlcl.token.descriptor.TokenMatcher}s are reused to read many short sources.<br><br>
+ *
+ * A {@code Tokenizer} is taken with {@link #acquire(Reader, String)} and given back with {@link #release(Tokenizer)}
+ * once its {@link Token}s have been read, exactly once. At most {@link #getCapacity()} {@code Tokenizer}s are kept: others are left
+ * to the garbage collector. A {@code TokenizerPool} can be shared between threads, but a {@code Tokenizer} is only used
+ * by one thread at a time.<br><br>
+ *
+ * {@link Token}s made by {@link Tokenizer#readToken()} and the methods relying on it slice their value from the window
+ * instead of copying it, so they remain valid after the {@code Tokenizer} is released: its window is then only reused
+ * if no {@code Token} has been sliced from it. Sources read with {@link Tokenizer#tokenize(TokenSink)} or
+ * {@link Tokenizer#readTokenBuffer()} always leave the window to the next {@code acquire}.
+ *
+ * @since 0.3
+ *
+ * @see Tokenizer#reset(Reader, String)
+ */
+public final class TokenizerPool {
+	/**
+	 * The {@link LanguageDefinition} of the pooled {@link Tokenizer}s.
+	 *
+	 * @since 0.3
+	 */
+	private final LanguageDefinition definition;
+
+	/**
+	 * Idle {@link Tokenizer}s.
+	 *
+	 * @since 0.3
+	 */
+	private final ArrayBlockingQueue<Tokenizer> idle;
+
+	/**
+	 * Creates a new {@code TokenizerPool}.
+	 *
+	 * @param definition definition of the language of the pooled {@link Tokenizer}s.
+	 * @param capacity maximum count of idle {@code Tokenizer}s kept.
+	 *
+	 * @throws IllegalArgumentException if {@code capacity} is not positive.
+	 *
+	 * @since 0.3
+	 */
+	public TokenizerPool(LanguageDefinition definition, int capacity) {
+		if(capacity <= 0) throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+		this.definition = Objects.requireNonNull(definition);
+		this.idle = new ArrayBlockingQueue<>(capacity);
+	}
+
+	/**
+	 * Gets the {@link LanguageDefinition} of the pooled {@link Tokenizer}s.
+	 *
+	 * @return the {@code LanguageDefinition}.
+	 *
+	 * @since 0.3
+	 */
+	public LanguageDefinition getDefinition() {
+		return definition;
+	}
+
+	/**
+	 * Gets the maximum count of idle {@link Tokenizer}s kept.
+	 *
+	 * @return the capacity of this pool.
+	 *
+	 * @since 0.3
+	 */
+	public int getCapacity() {
+		return idle.size() + idle.remainingCapacity();
+	}
+
+	/**
+	 * Takes a {@link Tokenizer} reading from {@code source}, reusing an idle one if possible.
+	 *
+	 * @param source source from which the Tokenizer need to read data.
+	 * @param sourceName name of the source (mostly relative path to the file).
+	 * @return the {@code Tokenizer}.
+	 *
+	 * @since 0.3
+	 */
+	public Tokenizer acquire(Reader source, String sourceName) {
+		var tokenizer = idle.poll();
+		if(tokenizer == null) {
+			tokenizer = new Tokenizer(definition, source, sourceName);
+		} else {
+			tokenizer.reset(source, sourceName);
+		}
+		tokenizer.pool = this;
+		return tokenizer;
+	}
+
+	/**
+	 * Gives back a {@link Tokenizer} taken from this pool. It must not be used afterwards. It is kept for a next
+	 * {@link #acquire(Reader, String)} unless the pool is full.
+	 *
+	 * @param tokenizer the {@code Tokenizer} to give back.
+	 *
+	 * @throws IllegalArgumentException if {@code tokenizer} does not use the {@link LanguageDefinition} of this pool.
+	 * @throws IllegalStateException if {@code tokenizer} has not been acquired from this pool, or has already been
+	 * released, so it is not handed to two threads.
+	 *
+	 * @since 0.3
+	 */
+	public void release(Tokenizer tokenizer) {
+		if(tokenizer.getDefinition() != definition) {
+			throw new IllegalArgumentException("Tokenizer of another LanguageDefinition");
+		}
+		if(tokenizer.pool != this) {
+			throw new IllegalStateException("Tokenizer not acquired from this pool, or already released");
+		}
+		tokenizer.pool = null;
+		idle.offer(tokenizer);
+	}
+}
@@ -0,0 +1,309 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token.automaton;
+
+import universe.lambda.jlcl.token.descriptor.TokenMatcher;
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Immutable table-driven deterministic automaton recognizing the {@link universe.lambda.jlcl.token.Token}s of several
+ * {@link TokenTypeDescriptor}s at once. It is created by the {@link AutomatonCompiler}.<br><br>
+ *
+ * Code units are first mapped to a character class: each ASCII character has its own class, as do the significant
+ * characters of the compiled {@link StateMachine}s, while the remaining characters are split between letters, digits
+ * and others.
+ *
+ * @since 0.3
+ */
+public final class Automaton {
+	/**
+	 * State reached when no continuation of the input can be accepted.
+	 *
+	 * @since 0.3
+	 */
+	public static final int DEAD = -1;
+
+	/**
+	 * Sorted significant characters outside of the ASCII range. The class of {@code specials[i]} is {@code 128 + i}.
+	 *
+	 * @since 0.3
+	 */
+	private final char[] specials;
+
+	/**
+	 * Count of character classes.
+	 *
+	 * @since 0.3
+	 */
+	private final int classCount;
+
+	/**
+	 * Transition table, indexed by {@code state * classCount + class}.
+	 *
+	 * @since 0.3
+	 */
+	private final int[] transitions;
+
+	/**
+	 * Descriptor of the {@link universe.lambda.jlcl.token.Token} accepted by each state, {@code null} if none.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenTypeDescriptor[] accepted;
+
+	/**
+	 * Index of the descriptor accepted by each state in the array the {@code Automaton} has been compiled from,
+	 * {@code -1} if none.
+	 *
+	 * @since 0.3
+	 */
+	private final int[] acceptedIndices;
+
+	/**
+	 * Creates a new {@code Automaton}. Only the {@link AutomatonCompiler} is supposed to create them.
+	 *
+	 * @param specials sorted significant characters outside of the ASCII range.
+	 * @param transitions transition table.
+	 * @param accepted descriptor accepted by each state.
+	 * @param acceptedIndices index of the descriptor accepted by each state.
+	 *
+	 * @since 0.3
+	 */
+	Automaton(char[] specials, int[] transitions, TokenTypeDescriptor[] accepted, int[] acceptedIndices) {
+		this.specials = specials;
+		this.classCount = getClassCount(specials.length);
+		this.transitions = transitions;
+		this.accepted = accepted;
+		this.acceptedIndices = acceptedIndices;
+	}
+
+	/**
+	 * Gets the initial state, corresponding to an empty input.
+	 *
+	 * @return the initial state.
+	 *
+	 * @since 0.3
+	 */
+	public int getInitialState() {
+		return 0;
+	}
+
+	/**
+	 * Gets the count of states of this {@code Automaton}.
+	 *
+	 * @return the count of states.
+	 *
+	 * @since 0.3
+	 */
+	public int getStateCount() {
+		return accepted.length;
+	}
+
+	/**
+	 * Gets the state reached by feeding {@code c} in {@code state}.
+	 *
+	 * @param state current state.
+	 * @param c code unit to feed.
+	 * @return the next state, {@link #DEAD} if no continuation of the input can be accepted.
+	 *
+	 * @since 0.3
+	 */
+	public int next(int state, char c) {
+		return transitions[state * classCount + getCharacterClass(c)];
+	}
+
+	/**
+	 * Gets the descriptor of the {@link universe.lambda.jlcl.token.Token} accepted in {@code state}.
+	 *
+	 * @param state state to check.
+	 * @return the accepted descriptor, {@code null} if {@code state} is not accepting.
+	 *
+	 * @since 0.3
+	 */
+	public TokenTypeDescriptor getAcceptedDescriptor(int state) {
+		return accepted[state];
+	}
+
+	/**
+	 * Gets the index of the descriptor accepted in {@code state}, in the array this {@code Automaton} has been compiled
+	 * from.
+	 *
+	 * @param state state to check.
+	 * @return the index of the accepted descriptor, {@code -1} if {@code state} is not accepting.
+	 *
+	 * @since 0.3
+	 *
+	 * @see AutomatonCompiler#compile(TokenTypeDescriptor[])
+	 */
+	public int getAcceptedIndex(int state) {
+		return acceptedIndices[state];
+	}
+
+	/**
+	 * Creates a {@link TokenMatcher} running this {@code Automaton}. It reports {@link TokenMatcher#ACCEPTING} whenever
+	 * a descriptor is accepted.
+	 *
+	 * @return a new {@code TokenMatcher}.
+	 *
+	 * @since 0.3
+	 */
+	public TokenMatcher newMatcher() {
+		return new Matcher();
+	}
+
+	/**
+	 * Writes the tables of this {@code Automaton}, so it can be restored by {@link #read(ByteBuffer,
+	 * TokenTypeDescriptor[])} without compiling it again.
+	 *
+	 * @param out output to write to.
+	 *
+	 * @throws IOException if writing to {@code out} fails.
+	 *
+	 * @since 0.3
+	 */
+	public void write(DataOutput out) throws IOException {
+		out.writeInt(specials.length);
+		for(var c : specials) out.writeChar(c);
+
+		out.writeInt(accepted.length);
+		for(var target : transitions) out.writeInt(target);
+		for(var index : acceptedIndices) out.writeInt(index);
+	}
+
+	/**
+	 * Reads the tables of an {@code Automaton} written by {@link #write(DataOutput)}.
+	 *
+	 * @param in buffer to read from, from its position, which is moved after the tables.
+	 * @param descriptors descriptors the {@code Automaton} has been compiled from, in the same order.
+	 * @return the read {@code Automaton}.
+	 *
+	 * @throws IllegalArgumentException if the tables are not consistent with {@code descriptors}.
+	 * @throws java.nio.BufferUnderflowException if {@code in} ends before the tables.
+	 *
+	 * @since 0.3
+	 */
+	public static Automaton read(ByteBuffer in, TokenTypeDescriptor[] descriptors) {
+		var specials = new char[checkCount(in.getInt(), 0, in.remaining() / 2)];
+		in.asCharBuffer().get(specials);
+		in.position(in.position() + specials.length * 2);
+
+		var classCount = getClassCount(specials.length);
+		var stateCount = checkCount(in.getInt(), 1, in.remaining() / 4 / (classCount + 1));
+
+		var transitions = new int[stateCount * classCount];
+		in.asIntBuffer().get(transitions);
+		in.position(in.position() + transitions.length * 4);
+		for(var target : transitions) {
+			if(target < DEAD || target >= stateCount) throw new IllegalArgumentException("Invalid transition: " + target);
+		}
+
+		var acceptedIndices = new int[stateCount];
+		in.asIntBuffer().get(acceptedIndices);
+		in.position(in.position() + acceptedIndices.length * 4);
+
+		var accepted = new TokenTypeDescriptor[stateCount];
+		for(int state = 0; state < stateCount; state++) {
+			var index = acceptedIndices[state];
+			if(index < -1 || index >= descriptors.length) {
+				throw new IllegalArgumentException("Invalid descriptor index: " + index);
+			}
+			if(index >= 0) accepted[state] = descriptors[index];
+		}
+		return new Automaton(specials, transitions, accepted, acceptedIndices);
+	}
+
+	/**
+	 * Checks a count read by {@link #read(ByteBuffer, TokenTypeDescriptor[])}.
+	 *
+	 * @param count count to check.
+	 * @param min minimum valid count.
+	 * @param max maximum count which can still be read.
+	 * @return {@code count}.
+	 *
+	 * @throws IllegalArgumentException if {@code count} is lower than {@code min} or greater than {@code max}.
+	 *
+	 * @since 0.3
+	 */
+	private static int checkCount(int count, int min, int max) {
+		if(count < min || count > max) throw new IllegalArgumentException("Invalid count: " + count);
+		return count;
+	}
+
+	/**
+	 * Gets the character class of {@code c}.
+	 *
+	 * @param c code unit to get the class of.
+	 * @return the class of {@code c}.
+	 *
+	 * @since 0.3
+	 */
+	int getCharacterClass(char c) {
+		if(c < 128) return c;
+
+		var index = Arrays.binarySearch(specials, c);
+		if(index >= 0) return 128 + index;
+		if(Character.isLetter(c)) return classCount - 3;
+		if(Character.isDigit(c)) return classCount - 2;
+		return classCount - 1;
+	}
+
+	/**
+	 * Gets the count of character classes given the count of significant characters outside of the ASCII range.
+	 *
+	 * @param specialCount count of significant characters.
+	 * @return the count of character classes.
+	 *
+	 * @since 0.3
+	 */
+	static int getClassCount(int specialCount) {
+		return 128 + specialCount + 3;
+	}
+
+	/**
+	 * {@link TokenMatcher} running the enclosing {@link Automaton}.
+	 *
+	 * @since 0.3
+	 */
+	private final class Matcher implements TokenMatcher {
+		/**
+		 * Current state.
+		 *
+		 * @since 0.3
+		 */
+		private int state = getInitialState();
+
+		@Override
+		public int feed(char c) {
+			state = next(state, c);
+			if(state == Automaton.DEAD) return DEAD;
+			return accepted[state] != null ? ACCEPTING : LIVE;
+		}
+
+		@Override
+		public void reset() {
+			state = getInitialState();
+		}
+	}
+}
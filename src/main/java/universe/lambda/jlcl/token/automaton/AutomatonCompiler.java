@@ -0,0 +1,211 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token.automaton;
+
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTrie;
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Class compiling built-in {@link TokenTypeDescriptor}s into a single {@link Automaton}. The {@link StateMachine}s of
+ * the descriptors are run side by side (product construction), each reachable combination of their states becoming one
+ * state of the automaton. The {@link universe.lambda.jlcl.token.descriptor.DefinedTokenTypeDescriptor}s are merged into
+ * a single {@link DefinedTokenTrie} beforehand, so they count as one state machine whatever their number.
+ *
+ * @since 0.3
+ */
+public final class AutomatonCompiler {
+	/**
+	 * Static-access-only class, so no instance :)
+	 */
+	private AutomatonCompiler() {}
+
+	/**
+	 * Compiles the specified descriptors. When several descriptors accept the same input, the first one is retained.
+	 *
+	 * @param descriptors descriptors to compile, by priority.
+	 * @return the compiled automaton, {@code null} if one of the descriptors is not a built-in descriptor.
+	 *
+	 * @since 0.3
+	 *
+	 * @see StateMachines#of(TokenTypeDescriptor)
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public static Automaton compile(TokenTypeDescriptor[] descriptors) {
+		var trie = new DefinedTokenTrie(descriptors);
+		var machines = new ArrayList<StateMachine>();
+		var priorities = new ArrayList<Integer>();
+
+		if(trie.size() > 0) {
+			// the priority of the trie depends on its state, see resolve.
+			machines.add(StateMachines.trie(trie));
+			priorities.add(-1);
+		}
+
+		for(int i = 0; i < descriptors.length; i++) {
+			if(trie.isMerged(i)) continue;
+
+			var machine = StateMachines.of(descriptors[i]);
+			if(machine == null) return null;
+
+			machines.add(machine);
+			priorities.add(i);
+		}
+
+		var significant = new TreeSet<Character>();
+		for(var machine : machines) {
+			var chars = machine.getSignificantCharacters();
+			for(int j = 0; j < chars.length(); j++) {
+				if(chars.charAt(j) >= 128) significant.add(chars.charAt(j));
+			}
+		}
+
+		var specials = new char[significant.size()];
+		var index = 0;
+		for(var curr : significant) specials[index++] = curr;
+
+		var representatives = getRepresentatives(specials);
+		var classCount = representatives.length;
+
+		var ids = new HashMap<List<Object>, Integer>();
+		var states = new ArrayList<Object[]>();
+		var queue = new ArrayDeque<Integer>();
+
+		var initial = new Object[machines.size()];
+		for(int i = 0; i < initial.length; i++) initial[i] = machines.get(i).getInitialState();
+		ids.put(Arrays.asList(initial), 0);
+		states.add(initial);
+		queue.add(0);
+
+		var transitions = new int[classCount * 16];
+
+		while(!queue.isEmpty()) {
+			int state = queue.poll();
+			var current = states.get(state);
+
+			for(int cls = 0; cls < classCount; cls++) {
+				var next = new Object[current.length];
+				var alive = false;
+
+				for(int i = 0; i < current.length; i++) {
+					if(current[i] == null) continue;
+					next[i] = machines.get(i).next(current[i], representatives[cls]);
+					alive |= next[i] != null;
+				}
+
+				int target = Automaton.DEAD;
+				if(alive) {
+					var key = Arrays.asList(next);
+					var id = ids.get(key);
+					if(id == null) {
+						id = states.size();
+						ids.put(key, id);
+						states.add(next);
+						queue.add(id);
+					}
+					target = id;
+				}
+
+				if(transitions.length <= state * classCount + cls) {
+					transitions = Arrays.copyOf(transitions, transitions.length * 2);
+				}
+				transitions[state * classCount + cls] = target;
+			}
+		}
+
+		var accepted = new TokenTypeDescriptor[states.size()];
+		var acceptedIndices = new int[states.size()];
+		// the initial state corresponds to an empty input, which is never a token.
+		acceptedIndices[0] = -1;
+		for(int state = 1; state < accepted.length; state++) {
+			acceptedIndices[state] = resolve(trie, machines, priorities, states.get(state));
+			if(acceptedIndices[state] >= 0) accepted[state] = descriptors[acceptedIndices[state]];
+		}
+
+		return new Automaton(specials, Arrays.copyOf(transitions, states.size() * classCount), accepted, acceptedIndices);
+	}
+
+	/**
+	 * Gets the descriptor accepting a combination of states.
+	 *
+	 * @param trie trie of the defined descriptors.
+	 * @param machines state machines, the one of {@code trie} first if it has been added.
+	 * @param priorities indices in {@code descriptors} of the machines, {@code -1} for the one of {@code trie}.
+	 * @param states states of the machines.
+	 * @return the index of the accepting descriptor, {@code -1} if none.
+	 *
+	 * @since 0.3
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static int resolve(DefinedTokenTrie trie, List<StateMachine> machines, List<Integer> priorities,
+			Object[] states) {
+		var best = -1;
+
+		for(int i = 0; i < states.length; i++) {
+			if(states[i] == null || !machines.get(i).isAccepting(states[i])) continue;
+
+			int priority = priorities.get(i);
+			if(priority < 0) priority = trie.getAccepted((Integer) states[i]);
+			if(best < 0 || priority < best) best = priority;
+		}
+		return best;
+	}
+
+	/**
+	 * Gets a representative code unit for each character class.
+	 *
+	 * @param specials sorted significant characters outside of the ASCII range.
+	 * @return the representatives, indexed by class.
+	 *
+	 * @since 0.3
+	 *
+	 * @see Automaton#getCharacterClass(char)
+	 */
+	private static char[] getRepresentatives(char[] specials) {
+		var classCount = Automaton.getClassCount(specials.length);
+		var representatives = new char[classCount];
+
+		for(char c = 0; c < 128; c++) representatives[c] = c;
+		System.arraycopy(specials, 0, representatives, 128, specials.length);
+
+		boolean letter = false, digit = false, other = false;
+		for(char c = 128; c < Character.MAX_VALUE && !(letter && digit && other); c++) {
+			if(Arrays.binarySearch(specials, c) >= 0) continue;
+
+			if(Character.isLetter(c)) {
+				if(!letter) representatives[classCount - 3] = c;
+				letter = true;
+			} else if(Character.isDigit(c)) {
+				if(!digit) representatives[classCount - 2] = c;
+				digit = true;
+			} else {
+				if(!other) representatives[classCount - 1] = c;
+				other = true;
+			}
+		}
+		return representatives;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token.automaton;
+
+/**
+ * Deterministic description of the language recognized by a {@link universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor},
+ * fed one UTF-16 code unit at a time.<br><br>
+ *
+ * States MUST be immutable and MUST implement {@code equals} and {@code hashCode}, as they are used as keys by the
+ * {@link AutomatonCompiler}. A state machine must also be exact: {@link #next} returns {@code null} if, and only if, no
+ * continuation of the input can ever be accepted.<br><br>
+ *
+ * Transitions on characters outside of the ASCII range which are not part of {@link #getSignificantCharacters()} may
+ * only depend on {@link Character#isLetter(char)} and {@link Character#isDigit(char)}.
+ *
+ * @param <S> type of the states.
+ *
+ * @since 0.3
+ *
+ * @see StateMachines
+ * @see Automaton
+ */
+public interface StateMachine<S> {
+	/**
+	 * Gets the state corresponding to an empty input.
+	 *
+	 * @return the initial state.
+	 *
+	 * @since 0.3
+	 */
+	S getInitialState();
+
+	/**
+	 * Gets the state reached by feeding {@code c} in {@code state}.
+	 *
+	 * @param state current state.
+	 * @param c code unit to feed.
+	 * @return the next state, {@code null} if no continuation of the input can be accepted.
+	 *
+	 * @since 0.3
+	 */
+	S next(S state, char c);
+
+	/**
+	 * Gets whether the input which led to {@code state} is accepted.
+	 *
+	 * @param state state to check.
+	 * @return {@code true} if the input is accepted, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	boolean isAccepting(S state);
+
+	/**
+	 * Gets the characters outside of the ASCII range this state machine needs to tell apart from other characters.
+	 *
+	 * @return the significant characters.
+	 *
+	 * @since 0.3
+	 */
+	default CharSequence getSignificantCharacters() {
+		return "";
+	}
+}
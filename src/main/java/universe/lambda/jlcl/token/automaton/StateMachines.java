@@ -0,0 +1,746 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token.automaton;
+
+import universe.lambda.jlcl.token.descriptor.CharTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTrie;
+import universe.lambda.jlcl.token.descriptor.FloatTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.IdentifierTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.IntegerTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.StringTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
+
+import java.util.Objects;
+
+/**
+ * Class containing the {@link StateMachine}s of the built-in {@link TokenTypeDescriptor}s. Each of them recognizes
+ * exactly the values for which the {@code correspond} method of its descriptor returns {@code true}.<br><br>
+ *
+ * A state machine stays live as long as its input may be completed into a recognized value, which is not what the
+ * {@code mayCorrespond} method of its descriptor tells: "." leads to ".5", which is a float, and "0x" leads to
+ * "0x1", which is an integer, while neither of them may correspond, and "'ab" may correspond to a char while no char
+ * starts with it.
+ *
+ * @since 0.3
+ */
+public final class StateMachines {
+	/**
+	 * Static-access-only class, so no instance :)
+	 */
+	private StateMachines() {}
+
+	/**
+	 * Gets the {@link StateMachine} of a built-in {@link TokenTypeDescriptor}. Subclasses of built-in descriptors are
+	 * not considered built-in, as they may change what they recognize.
+	 *
+	 * @param descriptor descriptor to get the state machine of.
+	 * @return the state machine, {@code null} if {@code descriptor} is not a built-in descriptor.
+	 *
+	 * @since 0.3
+	 */
+	public static StateMachine<?> of(TokenTypeDescriptor descriptor) {
+		var type = descriptor.getClass();
+
+		if(type == DefinedTokenTypeDescriptor.class) {
+			return defined(((DefinedTokenTypeDescriptor) descriptor).getValue());
+		} else if(type == IdentifierTokenTypeDescriptor.class) {
+			return identifier();
+		} else if(type == IntegerTokenTypeDescriptor.class) {
+			return integer();
+		} else if(type == FloatTokenTypeDescriptor.class) {
+			return floating(((FloatTokenTypeDescriptor) descriptor).getSuffixes());
+		} else if(type == CharTokenTypeDescriptor.class) {
+			return character();
+		} else if(type == StringTokenTypeDescriptor.class) {
+			return string();
+		}
+		return null;
+	}
+
+	/**
+	 * Gets the {@link StateMachine} recognizing {@code value}.
+	 *
+	 * @param value recognized value.
+	 * @return the state machine.
+	 *
+	 * @since 0.3
+	 *
+	 * @see DefinedTokenTypeDescriptor
+	 */
+	public static StateMachine<Integer> defined(String value) {
+		return new DefinedMachine(value);
+	}
+
+	/**
+	 * Gets the {@link StateMachine} recognizing all the values merged in {@code trie}. Its states are the nodes of
+	 * {@code trie}.
+	 *
+	 * @param trie merged values.
+	 * @return the state machine.
+	 *
+	 * @since 0.3
+	 */
+	public static StateMachine<Integer> trie(DefinedTokenTrie trie) {
+		return new TrieMachine(trie);
+	}
+
+	/**
+	 * Gets the {@link StateMachine} recognizing identifiers.
+	 *
+	 * @return the state machine.
+	 *
+	 * @since 0.3
+	 *
+	 * @see IdentifierTokenTypeDescriptor
+	 */
+	public static StateMachine<Integer> identifier() {
+		return IdentifierMachine.INSTANCE;
+	}
+
+	/**
+	 * Gets the {@link StateMachine} recognizing integers.
+	 *
+	 * @return the state machine.
+	 *
+	 * @since 0.3
+	 *
+	 * @see IntegerTokenTypeDescriptor
+	 * @see universe.lambda.jlcl.utils.NumberUtil#isInteger(String)
+	 */
+	public static StateMachine<Integer> integer() {
+		return IntegerMachine.INSTANCE;
+	}
+
+	/**
+	 * Gets the {@link StateMachine} recognizing floats with and without the specified suffixes.
+	 *
+	 * @param suffixes recognized suffixes.
+	 * @return the state machine.
+	 *
+	 * @since 0.3
+	 *
+	 * @see FloatTokenTypeDescriptor
+	 * @see universe.lambda.jlcl.utils.NumberUtil#isFloat(String, String[])
+	 */
+	public static StateMachine<?> floating(String[] suffixes) {
+		return new FloatMachine(suffixes == null ? new String[0] : suffixes.clone());
+	}
+
+	/**
+	 * Gets the {@link StateMachine} recognizing characters.
+	 *
+	 * @return the state machine.
+	 *
+	 * @since 0.3
+	 *
+	 * @see CharTokenTypeDescriptor
+	 */
+	public static StateMachine<Integer> character() {
+		return CharMachine.INSTANCE;
+	}
+
+	/**
+	 * Gets the {@link StateMachine} recognizing strings.
+	 *
+	 * @return the state machine.
+	 *
+	 * @since 0.3
+	 *
+	 * @see StringTokenTypeDescriptor
+	 */
+	public static StateMachine<Integer> string() {
+		return StringMachine.INSTANCE;
+	}
+
+	/**
+	 * Gets the value of a digit in bases up to 36.
+	 *
+	 * @param c digit.
+	 * @return the value of the digit, {@code -1} if {@code c} is not a digit.
+	 *
+	 * @since 0.3
+	 */
+	private static int digitValue(char c) {
+		if(c >= '0' && c <= '9') return c - '0';
+		if(c >= 'A' && c <= 'Z') return c - 'A' + 10;
+		if(c >= 'a' && c <= 'z') return c - 'a' + 10;
+		return -1;
+	}
+
+	/**
+	 * State machine of {@link DefinedTokenTypeDescriptor}. The state is the count of matched code units.
+	 *
+	 * @since 0.3
+	 */
+	private static final class DefinedMachine implements StateMachine<Integer> {
+		/**
+		 * Recognized value.
+		 *
+		 * @since 0.3
+		 */
+		private final String value;
+
+		private DefinedMachine(String value) {
+			this.value = value;
+		}
+
+		@Override
+		public Integer getInitialState() {
+			return 0;
+		}
+
+		@Override
+		public Integer next(Integer state, char c) {
+			if(state < value.length() && value.charAt(state) == c) return state + 1;
+			return null;
+		}
+
+		@Override
+		public boolean isAccepting(Integer state) {
+			return state > 0 && state == value.length();
+		}
+
+		@Override
+		public CharSequence getSignificantCharacters() {
+			return value;
+		}
+	}
+
+	/**
+	 * State machine of {@link DefinedTokenTrie}.
+	 *
+	 * @since 0.3
+	 */
+	private static final class TrieMachine implements StateMachine<Integer> {
+		/**
+		 * Merged values.
+		 *
+		 * @since 0.3
+		 */
+		private final DefinedTokenTrie trie;
+
+		private TrieMachine(DefinedTokenTrie trie) {
+			this.trie = trie;
+		}
+
+		@Override
+		public Integer getInitialState() {
+			return DefinedTokenTrie.ROOT;
+		}
+
+		@Override
+		public Integer next(Integer state, char c) {
+			var node = trie.next(state, c);
+			return node == DefinedTokenTrie.DEAD ? null : node;
+		}
+
+		@Override
+		public boolean isAccepting(Integer state) {
+			return state != DefinedTokenTrie.ROOT && trie.getAccepted(state) >= 0;
+		}
+
+		@Override
+		public CharSequence getSignificantCharacters() {
+			return trie.getCharacters();
+		}
+	}
+
+	/**
+	 * State machine of {@link IdentifierTokenTypeDescriptor}.
+	 *
+	 * @since 0.3
+	 */
+	private static final class IdentifierMachine implements StateMachine<Integer> {
+		private static final IdentifierMachine INSTANCE = new IdentifierMachine();
+
+		private static final int START = 0;
+		private static final int IDENTIFIER = 1;
+
+		@Override
+		public Integer getInitialState() {
+			return START;
+		}
+
+		@Override
+		public Integer next(Integer state, char c) {
+			if(c != '_' && !Character.isLetterOrDigit(c)) return null;
+			if(state == START && Character.isDigit(c)) return null;
+			return IDENTIFIER;
+		}
+
+		@Override
+		public boolean isAccepting(Integer state) {
+			return state == IDENTIFIER;
+		}
+	}
+
+	/**
+	 * State machine of {@link IntegerTokenTypeDescriptor}. A leading '0' followed by a letter is a prefix which
+	 * selects the base ('x' for 16, 'b' for 2, 10 otherwise), while a leading '0' followed by anything else means
+	 * base 8.
+	 *
+	 * @since 0.3
+	 */
+	private static final class IntegerMachine implements StateMachine<Integer> {
+		private static final IntegerMachine INSTANCE = new IntegerMachine();
+
+		private static final int START = 0;
+		private static final int ZERO = 1;
+		private static final int DECIMAL = 2;
+		private static final int OCTAL = 3;
+		private static final int HEXADECIMAL_PREFIX = 4;
+		private static final int HEXADECIMAL = 5;
+		private static final int BINARY_PREFIX = 6;
+		private static final int BINARY = 7;
+		private static final int DECIMAL_PREFIX = 8;
+		private static final int PREFIXED_DECIMAL = 9;
+
+		@Override
+		public Integer getInitialState() {
+			return START;
+		}
+
+		@Override
+		public Integer next(Integer state, char c) {
+			var digit = digitValue(c);
+
+			switch(state) {
+				case START:
+					if(c == '0') return ZERO;
+					return (digit >= 1 && digit <= 9) ? DECIMAL : null;
+				case ZERO:
+					if(c == 'x' || c == 'X') return HEXADECIMAL_PREFIX;
+					if(c == 'b' || c == 'B') return BINARY_PREFIX;
+					if(Character.isLetter(c)) return DECIMAL_PREFIX;
+					return (digit >= 0 && digit < 8) ? OCTAL : null;
+				case DECIMAL:
+				case DECIMAL_PREFIX:
+				case PREFIXED_DECIMAL:
+					if(digit < 0 || digit >= 10) return null;
+					return state == DECIMAL ? DECIMAL : PREFIXED_DECIMAL;
+				case OCTAL:
+					return (digit >= 0 && digit < 8) ? OCTAL : null;
+				case HEXADECIMAL_PREFIX:
+				case HEXADECIMAL:
+					return (digit >= 0 && digit < 16) ? HEXADECIMAL : null;
+				case BINARY_PREFIX:
+				case BINARY:
+					return (digit == 0 || digit == 1) ? BINARY : null;
+				default:
+					return null;
+			}
+		}
+
+		@Override
+		public boolean isAccepting(Integer state) {
+			switch(state) {
+				case ZERO:
+				case DECIMAL:
+				case OCTAL:
+				case HEXADECIMAL:
+				case BINARY:
+				case PREFIXED_DECIMAL:
+					return true;
+				default:
+					return false;
+			}
+		}
+	}
+
+	/**
+	 * State machine of {@link CharTokenTypeDescriptor}. The state is the count of read code units.
+	 *
+	 * @since 0.3
+	 */
+	private static final class CharMachine implements StateMachine<Integer> {
+		private static final CharMachine INSTANCE = new CharMachine();
+
+		@Override
+		public Integer getInitialState() {
+			return 0;
+		}
+
+		@Override
+		public Integer next(Integer state, char c) {
+			switch(state) {
+				case 0:
+				case 2:
+					return c == '\'' ? state + 1 : null;
+				case 1:
+					return 2;
+				default:
+					return null;
+			}
+		}
+
+		@Override
+		public boolean isAccepting(Integer state) {
+			return state == 3;
+		}
+	}
+
+	/**
+	 * State machine of {@link StringTokenTypeDescriptor}.
+	 *
+	 * @since 0.3
+	 */
+	private static final class StringMachine implements StateMachine<Integer> {
+		private static final StringMachine INSTANCE = new StringMachine();
+
+		private static final int START = 0;
+		private static final int CONTENT = 1;
+		private static final int ESCAPED = 2;
+		private static final int CLOSED = 3;
+
+		@Override
+		public Integer getInitialState() {
+			return START;
+		}
+
+		@Override
+		public Integer next(Integer state, char c) {
+			switch(state) {
+				case START:
+					return c == '"' ? CONTENT : null;
+				case CONTENT:
+					if(c == '\\') return ESCAPED;
+					return c == '"' ? CLOSED : CONTENT;
+				case ESCAPED:
+					return CONTENT;
+				default:
+					return null;
+			}
+		}
+
+		@Override
+		public boolean isAccepting(Integer state) {
+			return state == CLOSED;
+		}
+	}
+
+	/**
+	 * State machine of {@link FloatTokenTypeDescriptor}. It mirrors {@link universe.lambda.jlcl.utils.NumberUtil#isFloat}
+	 * on the value stripped of its prefix (the body), and runs an {@link IntegerMachine} alongside since integers are
+	 * not floats.
+	 *
+	 * @since 0.3
+	 */
+	private static final class FloatMachine implements StateMachine<FloatState> {
+		/**
+		 * Recognized suffixes, by priority.
+		 *
+		 * @since 0.3
+		 */
+		private final String[] suffixes;
+
+		/**
+		 * Length of the longest suffix.
+		 *
+		 * @since 0.3
+		 */
+		private final int maxSuffixLength;
+
+		/**
+		 * All characters appearing in suffixes.
+		 *
+		 * @since 0.3
+		 */
+		private final String suffixChars;
+
+		/**
+		 * Character standing for all characters which are not part of a suffix in {@link FloatState#tail}.
+		 *
+		 * @since 0.3
+		 */
+		private final char placeholder;
+
+		private FloatMachine(String[] suffixes) {
+			this.suffixes = suffixes;
+
+			var chars = new StringBuilder();
+			var max = 0;
+			for(var curr : suffixes) {
+				chars.append(curr);
+				max = Math.max(max, curr.length());
+			}
+			this.maxSuffixLength = max;
+			this.suffixChars = chars.toString();
+
+			var candidate = Character.MAX_VALUE;
+			while(suffixChars.indexOf(candidate) >= 0) candidate--;
+			this.placeholder = candidate;
+		}
+
+		@Override
+		public FloatState getInitialState() {
+			return new FloatState(FloatState.EMPTY, 10, 0, 0, "", 0, false, IntegerMachine.INSTANCE.getInitialState());
+		}
+
+		@Override
+		public FloatState next(FloatState state, char c) {
+			var integer = state.integer == null ? null : IntegerMachine.INSTANCE.next(state.integer, c);
+
+			switch(state.phase) {
+				case FloatState.EMPTY:
+					if(c == '0') {
+						return new FloatState(FloatState.ZERO, 10, 0, 0, "", 0, false, integer);
+					}
+					return append(10, 0, 0, "", 0, c, c == '.', integer);
+				case FloatState.ZERO:
+					if(Character.isLetter(c)) {
+						int base = 10;
+						if(c == 'x' || c == 'X') base = 16;
+						else if(c == 'b' || c == 'B') base = 2;
+						return new FloatState(FloatState.BODY, base, 0, 0, "", 0, false, integer);
+					}
+					return append(8, 0, 0, "", 0, c, false, integer);
+				default:
+					return append(state.base, state.dots, state.length, state.tail, state.bad, c, false, integer);
+			}
+		}
+
+		/**
+		 * Appends {@code c} to the body of the value.
+		 *
+		 * @param base base of the body.
+		 * @param dots count of '.' before {@code c}.
+		 * @param length length of the body before {@code c}.
+		 * @param tail tail of the body before {@code c}.
+		 * @param bad distance to the first invalid code unit of the body before {@code c}.
+		 * @param c code unit to append.
+		 * @param lone flag indicating whether the value is exactly "." once {@code c} is appended.
+		 * @param integer state of the {@link IntegerMachine} once {@code c} is appended.
+		 * @return the next state, {@code null} if it cannot lead to a float.
+		 *
+		 * @since 0.3
+		 */
+		private FloatState append(int base, int dots, int length, String tail, int bad, char c, boolean lone, Integer integer) {
+			if(c == '.') dots++;
+			if(dots > 1) return null;
+
+			var max = suffixLength(base);
+			var digit = digitValue(c);
+
+			if(bad > 0) {
+				bad++;
+			} else if(c != '.' && (digit < 0 || digit >= base)) {
+				bad = 1;
+			}
+			if(bad > max) return null;
+
+			tail = tail + (suffixChars.indexOf(c) >= 0 ? c : placeholder);
+			if(tail.length() > max) tail = tail.substring(tail.length() - max);
+			length = Math.min(length + 1, max + 1);
+
+			var state = new FloatState(FloatState.BODY, base, dots, length, tail, bad, lone, integer);
+			if(bad > 0 && !isRecoverable(state)) return null;
+			return state;
+		}
+
+		/**
+		 * Gets whether an invalid body (see {@link FloatState#bad}) can still be made valid by completing a suffix.
+		 *
+		 * @param state state to check.
+		 * @return {@code true} if a continuation of the input leads to a float, {@code false} otherwise.
+		 *
+		 * @since 0.3
+		 */
+		private boolean isRecoverable(FloatState state) {
+			for(int i = 0; i < suffixes.length; i++) {
+				var suffix = suffixes[i];
+
+				for(int overlap = state.bad; overlap <= Math.min(suffix.length(), state.length); overlap++) {
+					if(!state.tail.endsWith(suffix.substring(0, overlap))) continue;
+
+					var rest = suffix.substring(overlap);
+					if(state.dots + countDots(rest) > 1) continue;
+					if(firstSuffix(state.tail + rest, state.length + rest.length()) == i) return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public boolean isAccepting(FloatState state) {
+			if(state.integer != null && IntegerMachine.INSTANCE.isAccepting(state.integer)) return false;
+
+			switch(state.phase) {
+				case FloatState.ZERO:
+					return true;
+				case FloatState.BODY:
+					if(state.lone) return false;
+					if(state.base > 10) return state.bad == 0;
+					return state.bad <= strippedLength(state.tail, state.length);
+				default:
+					return false;
+			}
+		}
+
+		@Override
+		public CharSequence getSignificantCharacters() {
+			return suffixChars;
+		}
+
+		/**
+		 * Gets the length of the suffix stripped from a body.
+		 *
+		 * @param tail last code units of the body.
+		 * @param length length of the body.
+		 * @return the length of the stripped suffix, {@code 0} if none.
+		 *
+		 * @since 0.3
+		 */
+		private int strippedLength(String tail, int length) {
+			var index = firstSuffix(tail, length);
+			return index < 0 ? 0 : suffixes[index].length();
+		}
+
+		/**
+		 * Gets the index of the first suffix a body ends with.
+		 *
+		 * @param tail last code units of the body.
+		 * @param length length of the body.
+		 * @return the index of the suffix, {@code -1} if none.
+		 *
+		 * @since 0.3
+		 */
+		private int firstSuffix(String tail, int length) {
+			for(int i = 0; i < suffixes.length; i++) {
+				if(suffixes[i].length() <= length && tail.endsWith(suffixes[i])) return i;
+			}
+			return -1;
+		}
+
+		/**
+		 * Gets the length of the longest suffix which may be stripped from a body in the specified base.
+		 *
+		 * @param base base of the body.
+		 * @return the length.
+		 *
+		 * @since 0.3
+		 */
+		private int suffixLength(int base) {
+			return base <= 10 ? maxSuffixLength : 0;
+		}
+
+		/**
+		 * Gets the count of '.' in {@code value}.
+		 *
+		 * @param value value to count from.
+		 * @return the count.
+		 *
+		 * @since 0.3
+		 */
+		private static int countDots(String value) {
+			var count = 0;
+			for(int i = 0; i < value.length(); i++) {
+				if(value.charAt(i) == '.') count++;
+			}
+			return count;
+		}
+	}
+
+	/**
+	 * State of a {@link FloatMachine}.
+	 *
+	 * @since 0.3
+	 */
+	private static final class FloatState {
+		/**
+		 * Phase where nothing has been read.
+		 */
+		private static final int EMPTY = 0;
+
+		/**
+		 * Phase where only a '0' has been read: the prefix is still unknown.
+		 */
+		private static final int ZERO = 1;
+
+		/**
+		 * Phase where the prefix is known and code units are appended to the body.
+		 */
+		private static final int BODY = 2;
+
+		private final int phase;
+
+		/**
+		 * Base selected by the prefix.
+		 */
+		private final int base;
+
+		/**
+		 * Count of '.' read.
+		 */
+		private final int dots;
+
+		/**
+		 * Length of the body, capped to one more than the longest suffix.
+		 */
+		private final int length;
+
+		/**
+		 * Last code units of the body, as many as the longest suffix. Code units which are not part of a suffix are
+		 * replaced by a placeholder.
+		 */
+		private final String tail;
+
+		/**
+		 * Distance from the end of the body to its first code unit which is not a valid digit, {@code 0} if none.
+		 */
+		private final int bad;
+
+		/**
+		 * Flag indicating whether the value is exactly ".".
+		 */
+		private final boolean lone;
+
+		/**
+		 * State of the {@link IntegerMachine} for the same value.
+		 */
+		private final Integer integer;
+
+		private FloatState(int phase, int base, int dots, int length, String tail, int bad, boolean lone, Integer integer) {
+			this.phase = phase;
+			this.base = base;
+			this.dots = dots;
+			this.length = length;
+			this.tail = tail;
+			this.bad = bad;
+			this.lone = lone;
+			this.integer = integer;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if(this == o) return true;
+			if(!(o instanceof FloatState)) return false;
+			var other = (FloatState) o;
+			return phase == other.phase && base == other.base && dots == other.dots && length == other.length
+					&& bad == other.bad && lone == other.lone && tail.equals(other.tail)
+					&& Objects.equals(integer, other.integer);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(phase, base, dots, length, tail, bad, lone, integer);
+		}
+	}
+}
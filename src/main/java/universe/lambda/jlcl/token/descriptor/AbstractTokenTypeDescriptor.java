@@ -38,7 +38,7 @@ public abstract class AbstractTokenTypeDescriptor implements TokenTypeDescriptor
 	 *
 	 * @since 0.1
 	 */
-	private String name;
+	private final String name;
 
 	/**
 	 * Creates a new {@code AbstractTokenTypeDescriptor} with the given name.
@@ -0,0 +1,75 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token.descriptor;
+
+/**
+ * {@link TokenMatcher} relying on {@link TokenTypeDescriptor#mayCorrespond(String)} and
+ * {@link TokenTypeDescriptor#correspond(String)}. It is used for descriptors which do not provide their own.<br><br>
+ *
+ * Each fed code-point only costs a {@code mayCorrespond} call, and {@code correspond} is called once the value is
+ * complete. Both of them still check the whole value, so reading a value takes quadratic time in its length.
+ *
+ * @since 0.3
+ */
+final class CorrespondenceMatcher implements TokenMatcher {
+	/**
+	 * Descriptor to match.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenTypeDescriptor descriptor;
+
+	/**
+	 * Value read so far.
+	 *
+	 * @since 0.3
+	 */
+	private final StringBuilder buff = new StringBuilder();
+
+	/**
+	 * Creates a new {@code CorrespondenceMatcher}.
+	 *
+	 * @param descriptor descriptor to match.
+	 *
+	 * @since 0.3
+	 */
+	CorrespondenceMatcher(TokenTypeDescriptor descriptor) {
+		this.descriptor = descriptor;
+	}
+
+	@Override
+	public int feed(char c) {
+		buff.append(c);
+		if(descriptor.mayCorrespond(buff.toString())) return LIVE;
+
+		buff.setLength(buff.length() - 1);
+		return DEAD;
+	}
+
+	@Override
+	public boolean accepts() {
+		return descriptor.correspond(buff.toString());
+	}
+
+	@Override
+	public void reset() {
+		buff.setLength(0);
+	}
+}
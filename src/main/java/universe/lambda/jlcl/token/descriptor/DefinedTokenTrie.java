@@ -0,0 +1,331 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token.descriptor;
+
+import java.util.Arrays;
+
+/**
+ * Prefix tree merging the values of several {@link DefinedTokenTypeDescriptor}s. It advances one node per code-point,
+ * whatever the count of merged descriptors, and tells both whether a value may correspond to one of them and which one
+ * it corresponds to.<br><br>
+ *
+ * A {@code DefinedTokenTrie} is built from descriptors by priority: only instances of
+ * {@code DefinedTokenTypeDescriptor} itself are merged, subclasses are left out as they may change what they
+ * recognize. Descriptors are identified by their index in the array the {@code DefinedTokenTrie} is built from, and when
+ * several of them have the same value, the first one is retained.<br><br>
+ *
+ * Instances of this class are immutable.
+ *
+ * @since 0.3
+ */
+public final class DefinedTokenTrie {
+	/**
+	 * Node reached by a value which is not the prefix of any merged value.
+	 *
+	 * @since 0.3
+	 */
+	public static final int DEAD = -1;
+
+	/**
+	 * Node reached by an empty value.
+	 *
+	 * @since 0.3
+	 */
+	public static final int ROOT = 0;
+
+	/**
+	 * Descriptors the {@code DefinedTokenTrie} has been built from, by priority.
+	 *
+	 * @since 0.3
+	 */
+	private final TokenTypeDescriptor[] descriptors;
+
+	/**
+	 * Flags indicating, at the same indices as {@link #descriptors}, whether a descriptor has been merged.
+	 *
+	 * @since 0.3
+	 */
+	private final boolean[] merged;
+
+	/**
+	 * Sorted code-points leading out of each node.
+	 *
+	 * @since 0.3
+	 */
+	private final char[][] labels;
+
+	/**
+	 * Nodes reached from each node, at the same indices as {@link #labels}.
+	 *
+	 * @since 0.3
+	 */
+	private final int[][] children;
+
+	/**
+	 * Index of the descriptor which value leads to each node, {@code -1} if none.
+	 *
+	 * @since 0.3
+	 */
+	private final int[] accepted;
+
+	/**
+	 * Count of merged descriptors.
+	 *
+	 * @since 0.3
+	 */
+	private final int size;
+
+	/**
+	 * Creates a new {@code DefinedTokenTrie} from the specified descriptors.
+	 *
+	 * @param descriptors descriptors, by priority.
+	 *
+	 * @since 0.3
+	 */
+	public DefinedTokenTrie(TokenTypeDescriptor[] descriptors) {
+		this.descriptors = descriptors.clone();
+		this.merged = new boolean[descriptors.length];
+
+		var labels = new char[16][];
+		var children = new int[16][];
+		var accepted = new int[16];
+		var count = 1;
+		var size = 0;
+
+		labels[ROOT] = new char[0];
+		children[ROOT] = new int[0];
+		accepted[ROOT] = -1;
+
+		for(int i = 0; i < descriptors.length; i++) {
+			if(descriptors[i].getClass() != DefinedTokenTypeDescriptor.class) continue;
+
+			merged[i] = true;
+			size++;
+
+			var value = ((DefinedTokenTypeDescriptor) descriptors[i]).getValue();
+			var node = ROOT;
+
+			for(int j = 0; j < value.length(); j++) {
+				var c = value.charAt(j);
+				var pos = Arrays.binarySearch(labels[node], c);
+
+				if(pos >= 0) {
+					node = children[node][pos];
+					continue;
+				}
+
+				if(count == labels.length) {
+					labels = Arrays.copyOf(labels, count * 2);
+					children = Arrays.copyOf(children, count * 2);
+					accepted = Arrays.copyOf(accepted, count * 2);
+				}
+				labels[count] = new char[0];
+				children[count] = new int[0];
+				accepted[count] = -1;
+
+				pos = -pos - 1;
+				labels[node] = insert(labels[node], pos, c);
+				children[node] = insert(children[node], pos, count);
+				node = count++;
+			}
+
+			if(accepted[node] < 0) accepted[node] = i;
+		}
+
+		this.labels = Arrays.copyOf(labels, count);
+		this.children = Arrays.copyOf(children, count);
+		this.accepted = Arrays.copyOf(accepted, count);
+		this.size = size;
+	}
+
+	/**
+	 * Gets the node reached by feeding {@code c} in {@code node}.
+	 *
+	 * @param node current node, must not be {@link #DEAD}.
+	 * @param c code-point to feed.
+	 * @return the next node, {@link #DEAD} if the value is not the prefix of any merged value.
+	 *
+	 * @since 0.3
+	 */
+	public int next(int node, char c) {
+		var pos = Arrays.binarySearch(labels[node], c);
+		return pos < 0 ? DEAD : children[node][pos];
+	}
+
+	/**
+	 * Gets the index of the descriptor which value leads to {@code node}.
+	 *
+	 * @param node node to check.
+	 * @return the index of the descriptor, {@code -1} if none or if {@code node} is {@link #DEAD}.
+	 *
+	 * @since 0.3
+	 */
+	public int getAccepted(int node) {
+		return node == DEAD ? -1 : accepted[node];
+	}
+
+	/**
+	 * Gets the node reached by {@code value}.
+	 *
+	 * @param value value to feed from the {@link #ROOT}.
+	 * @return the node reached, {@link #DEAD} if {@code value} is not the prefix of any merged value.
+	 *
+	 * @since 0.3
+	 */
+	public int find(CharSequence value) {
+		var node = ROOT;
+		for(int i = 0; i < value.length() && node != DEAD; i++) {
+			node = next(node, value.charAt(i));
+		}
+		return node;
+	}
+
+	/**
+	 * Checks if {@code value} is the prefix of a merged value.
+	 *
+	 * @param value value to check.
+	 * @return {@code true} if a merged descriptor may correspond to {@code value}, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenTypeDescriptor#mayCorrespond(String)
+	 */
+	public boolean mayCorrespond(CharSequence value) {
+		return size > 0 && find(value) != DEAD;
+	}
+
+	/**
+	 * Gets the first merged descriptor which value is {@code value}.
+	 *
+	 * @param value value to check.
+	 * @return the index of the descriptor, {@code -1} if none.
+	 *
+	 * @since 0.3
+	 *
+	 * @see TokenTypeDescriptor#correspond(String)
+	 */
+	public int correspond(CharSequence value) {
+		return getAccepted(find(value));
+	}
+
+	/**
+	 * Checks if the descriptor at {@code index} has been merged in this {@code DefinedTokenTrie}.
+	 *
+	 * @param index index of the descriptor.
+	 * @return {@code true} if the descriptor has been merged, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	public boolean isMerged(int index) {
+		return merged[index];
+	}
+
+	/**
+	 * Gets the descriptor at {@code index}.
+	 *
+	 * @param index index of the descriptor, may be {@code -1}.
+	 * @return the descriptor, {@code null} if {@code index} is {@code -1}.
+	 *
+	 * @since 0.3
+	 */
+	public TokenTypeDescriptor getDescriptor(int index) {
+		return index < 0 ? null : descriptors[index];
+	}
+
+	/**
+	 * Gets the count of nodes of this {@code DefinedTokenTrie}, including the {@link #ROOT}. Nodes are numbered from
+	 * {@code 0} to this count excluded.
+	 *
+	 * @return the count of nodes.
+	 *
+	 * @since 0.3
+	 */
+	public int getNodeCount() {
+		return labels.length;
+	}
+
+	/**
+	 * Gets the count of merged descriptors.
+	 *
+	 * @return the count of merged descriptors.
+	 *
+	 * @since 0.3
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets all the code-points appearing in merged values, sorted and without duplicates.
+	 *
+	 * @return the code-points.
+	 *
+	 * @since 0.3
+	 */
+	public String getCharacters() {
+		var all = new StringBuilder();
+		for(var curr : labels) all.append(curr);
+
+		var chars = all.toString().toCharArray();
+		Arrays.sort(chars);
+
+		var unique = new StringBuilder();
+		for(int i = 0; i < chars.length; i++) {
+			if(i == 0 || chars[i] != chars[i - 1]) unique.append(chars[i]);
+		}
+		return unique.toString();
+	}
+
+	/**
+	 * Inserts a code-point in an array.
+	 *
+	 * @param array array to insert in.
+	 * @param pos position of the new code-point.
+	 * @param c code-point to insert.
+	 * @return a copy of {@code array} with {@code c} at {@code pos}.
+	 *
+	 * @since 0.3
+	 */
+	private static char[] insert(char[] array, int pos, char c) {
+		var copy = new char[array.length + 1];
+		System.arraycopy(array, 0, copy, 0, pos);
+		copy[pos] = c;
+		System.arraycopy(array, pos, copy, pos + 1, array.length - pos);
+		return copy;
+	}
+
+	/**
+	 * Inserts a node in an array.
+	 *
+	 * @param array array to insert in.
+	 * @param pos position of the new node.
+	 * @param node node to insert.
+	 * @return a copy of {@code array} with {@code node} at {@code pos}.
+	 *
+	 * @since 0.3
+	 */
+	private static int[] insert(int[] array, int pos, int node) {
+		var copy = new int[array.length + 1];
+		System.arraycopy(array, 0, copy, 0, pos);
+		copy[pos] = node;
+		System.arraycopy(array, pos, copy, pos + 1, array.length - pos);
+		return copy;
+	}
+}
@@ -35,11 +35,11 @@ import universe.lambda.jlcl.utils.NumberUtil;
  */
 public class FloatTokenTypeDescriptor extends AbstractTokenTypeDescriptor {
 	/**
-	 * Array containing all recognized suffixes.
+	 * Array containing all recognized suffixes. It is never modified nor exposed.
 	 *
 	 * @since 0.1
 	 */
-	private String[] floatSuffix;
+	private final String[] floatSuffix;
 
 	/**
 	 * Creates a new {@code FloatTokenTypeDescriptor} defaulting suffixes to "F", "f", "D" and "d".
@@ -53,13 +53,24 @@ public class FloatTokenTypeDescriptor extends AbstractTokenTypeDescriptor {
 	/**
 	 * Creates a new {@code FloatTokenTypeDescriptor} recognizing floats with and without the specified suffixes.
 	 *
-	 * @param suffixes recognized suffixes.
+	 * @param suffixes recognized suffixes. The array is copied.
 	 *
 	 * @since 0.1
 	 */
 	public FloatTokenTypeDescriptor(String[] suffixes) {
 		super(LanguageDefinition.FLOAT);
-		this.floatSuffix = (suffixes == null ? new String[0] : suffixes);
+		this.floatSuffix = (suffixes == null ? new String[0] : suffixes.clone());
+	}
+
+	/**
+	 * Gets the recognized suffixes.
+	 *
+	 * @return a copy of the recognized suffixes.
+	 *
+	 * @since 0.3
+	 */
+	public String[] getSuffixes() {
+		return floatSuffix.clone();
 	}
 
 	@Override
@@ -0,0 +1,89 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token.descriptor;
+
+/**
+ * Incremental counterpart of {@link TokenTypeDescriptor#mayCorrespond(String)} and
+ * {@link TokenTypeDescriptor#correspond(String)}.<br><br>
+ *
+ * A {@code TokenMatcher} is fed the code-points of a value one at a time, and tells after each of them whether the
+ * value read so far may still correspond to its descriptor. Whether the complete value corresponds to it is either
+ * reported by {@link #feed(char)} when it is cheap to know, or checked once by {@link #accepts()}. It is created by
+ * {@link TokenTypeDescriptor#newMatcher()} and may be reused for several values by calling {@link #reset()}.
+ *
+ * @since 0.3
+ */
+public interface TokenMatcher {
+	/**
+	 * Result indicating that neither the value read so far, nor any value starting with it, corresponds to the
+	 * descriptor. A {@code TokenMatcher} which reported it must not be fed until it is reset.
+	 *
+	 * @since 0.3
+	 */
+	int DEAD = 0;
+
+	/**
+	 * Result indicating that a value starting with the value read so far may correspond to the descriptor. The value
+	 * itself may correspond to it too, which is then checked by {@link #accepts()}.
+	 *
+	 * @since 0.3
+	 */
+	int LIVE = 1;
+
+	/**
+	 * Result indicating that the value read so far corresponds to the descriptor.
+	 *
+	 * @since 0.3
+	 */
+	int ACCEPTING = 2;
+
+	/**
+	 * Appends a code-point to the value read so far. If {@link #DEAD} is reported, the code-point is not part of the
+	 * value read so far as far as {@link #accepts()} is concerned.
+	 *
+	 * @param c code-point to append.
+	 * @return {@link #DEAD}, {@link #LIVE} or {@link #ACCEPTING}.
+	 *
+	 * @since 0.3
+	 */
+	int feed(char c);
+
+	/**
+	 * Checks whether the value read so far corresponds to the descriptor. It is called once the value is complete, on
+	 * a {@code TokenMatcher} which reported {@link #LIVE} for its last code-point, so it may be costly.<br><br>
+	 *
+	 * The default implementation returns {@code false}, which suits {@code TokenMatcher}s reporting
+	 * {@link #ACCEPTING} whenever the value corresponds.
+	 *
+	 * @return {@code true} if the value read so far corresponds to the descriptor, {@code false} otherwise.
+	 *
+	 * @since 0.3
+	 */
+	default boolean accepts() {
+		return false;
+	}
+
+	/**
+	 * Resets this {@code TokenMatcher} to an empty value.
+	 *
+	 * @since 0.3
+	 */
+	void reset();
+}
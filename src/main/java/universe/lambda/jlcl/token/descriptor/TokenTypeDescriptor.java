@@ -61,6 +61,47 @@ public interface TokenTypeDescriptor {
 	 */
 	boolean correspond(String value);
 
+	/**
+	 * Creates a {@link TokenMatcher} for this descriptor. The default implementation calls {@link #mayCorrespond} each
+	 * time a code-point is fed, and {@link #correspond} once the value is complete. As both of them check the whole
+	 * value, reading a {@link Token} takes quadratic time in its length: implementations SHOULD override this method
+	 * with a {@code TokenMatcher} keeping its own state, so each code-point is handled in constant time. For instance,
+	 * a descriptor of decimal digits may use:
+	 * <pre>{@code
+	 * public TokenMatcher newMatcher() {
+	 *     return new TokenMatcher() {
+	 *         public int feed(char c) {
+	 *             return (c >= '0' && c <= '9') ? ACCEPTING : DEAD;
+	 *         }
+	 *
+	 *         public void reset() {}
+	 *     };
+	 * }
+	 * }</pre>
+	 *
+	 * @return a new {@code TokenMatcher}.
+	 *
+	 * @since 0.3
+	 */
+	default TokenMatcher newMatcher() {
+		return new CorrespondenceMatcher(this);
+	}
+
+	/**
+	 * Gets the settings of this descriptor which change the input it reads, such as the values it accepts. They are
+	 * covered by {@link universe.lambda.jlcl.LanguageDefinition#getFingerprint()} along with its class and name, so two
+	 * descriptors of the same class and name with equal settings MUST read the same input. The default implementation
+	 * returns {@code null}, as the settings of a descriptor cannot be guessed: definitions holding it then have no
+	 * fingerprint. The settings of built-in descriptors are known, so this method is not called on them.
+	 *
+	 * @return the settings of this descriptor, {@code null} if they are unknown.
+	 *
+	 * @since 0.3
+	 */
+	default String getSettings() {
+		return null;
+	}
+
 	/**
 	 * Makes a {@link Token} from the specified arguments. Implementations of this method SHOULD check if the {@code value} corresponds to this descriptor and
 	 * return {@code null} if not.
@@ -0,0 +1,389 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl;
+
+import org.junit.jupiter.api.Test;
+import universe.lambda.jlcl.feature.FeatureList;
+import universe.lambda.jlcl.token.Token;
+import universe.lambda.jlcl.token.Tokenizer;
+import universe.lambda.jlcl.token.descriptor.AbstractTokenTypeDescriptor;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class containing tests for {@link universe.lambda.jlcl.token.automaton.Automaton}.
+ *
+ * @since 0.3
+ */
+class AutomatonTest {
+	/**
+	 * Builds the definition used by these tests.
+	 *
+	 * @param compile whether to compile an automaton.
+	 * @return the definition.
+	 */
+	private static LanguageDefinition definition(boolean compile) {
+		return new LanguageDefinition.Builder()
+				.addTokenType("PRINT", "PRINT")
+				.addTokenType("VAR", "VAR")
+				.addTokenType("SEMICOLON", ";")
+				.addTokenType("ASSIGN", "=")
+				.addTokenType("EQUALS", "==")
+				.addTokenType("PLUS", "+")
+				.addTokenType("DOT", ".")
+				.addTokenType("ELLIPSIS", "...")
+				.setCompileAutomaton(compile)
+				.build();
+	}
+
+	/**
+	 * Reads all tokens of {@code text}.
+	 *
+	 * @param def definition to use.
+	 * @param text text to read.
+	 * @return the read tokens.
+	 */
+	private static Token[] tokenize(LanguageDefinition def, String text) {
+		return new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+	}
+
+	/**
+	 * Tests that a compiled definition reads the same tokens as a definition which is not compiled.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void compiled_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample"))
+				+ "\n0x1F 0b101 017 12F 0.16d 'c' \"a \\\" b\"\r\nVAR x == y;";
+
+		var expected = tokenize(definition(false), text);
+		var compiled = definition(true);
+		assertNotNull(compiled.getAutomaton());
+		var actual = tokenize(compiled, text);
+
+		assertEquals(expected.length, actual.length);
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getDescriptor().getName(), actual[i].getDescriptor().getName());
+			assertEquals(expected[i].getValue(), actual[i].getValue());
+			assertEquals(expected[i].getLine(), actual[i].getLine());
+			assertEquals(expected[i].getColumn(), actual[i].getColumn());
+		}
+	}
+
+	/**
+	 * Tests that a serialized definition reads the same tokens once read back, and that corrupted content is rejected.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void serialized_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample"))
+				+ "\n0x1F 0b101 017 12F 0.16d 'c' \"a \\\" b\"\r\nVAR x == y;";
+		var compiled = definition(true);
+		var expected = tokenize(compiled, text);
+
+		var out = new ByteArrayOutputStream();
+		LanguageDefinitionSerializer.write(compiled, out);
+		var bytes = out.toByteArray();
+		var restored = LanguageDefinitionSerializer.read(ByteBuffer.wrap(bytes));
+
+		assertNotNull(restored);
+		assertNotNull(restored.getAutomaton());
+		assertEquals(compiled.getTokenTypeCount(), restored.getTokenTypeCount());
+		for(int i = 0; i < compiled.getTokenTypeCount(); i++) {
+			assertEquals(compiled.getTokenTypeDescriptor(i).getName(), restored.getTokenTypeDescriptor(i).getName());
+		}
+
+		var actual = tokenize(restored, text);
+		assertEquals(expected.length, actual.length);
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getDescriptor().getName(), actual[i].getDescriptor().getName());
+			assertEquals(expected[i].getValue(), actual[i].getValue());
+		}
+
+		bytes[bytes.length - 1] ^= 1;
+		assertNull(LanguageDefinitionSerializer.read(ByteBuffer.wrap(bytes)));
+	}
+
+	/**
+	 * Tests that the fingerprint of a definition only depends on its descriptors.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void fingerprint_descriptorsOnly() throws IOException {
+		var fingerprint = definition(false).getFingerprint();
+		assertEquals(32, fingerprint.length());
+		assertEquals(fingerprint, definition(true).getFingerprint());
+
+		var reversed = new LanguageDefinition.Builder()
+				.addTokenType("ELLIPSIS", "...")
+				.addTokenType("DOT", ".")
+				.addTokenType("PLUS", "+")
+				.addTokenType("EQUALS", "==")
+				.addTokenType("ASSIGN", "=")
+				.addTokenType("SEMICOLON", ";")
+				.addTokenType("VAR", "VAR")
+				.addTokenType("PRINT", "PRINT")
+				.build();
+		assertEquals(fingerprint, reversed.getFingerprint());
+
+		var changed = new LanguageDefinition.Builder()
+				.addTokenType("PRINT", "PRINT")
+				.addTokenType("VAR", "LET")
+				.addTokenType("SEMICOLON", ";")
+				.addTokenType("ASSIGN", "=")
+				.addTokenType("EQUALS", "==")
+				.addTokenType("PLUS", "+")
+				.addTokenType("DOT", ".")
+				.addTokenType("ELLIPSIS", "...")
+				.build();
+		assertNotEquals(fingerprint, changed.getFingerprint());
+
+		var out = new ByteArrayOutputStream();
+		LanguageDefinitionSerializer.write(definition(true), out);
+		assertEquals(fingerprint, LanguageDefinitionSerializer.read(ByteBuffer.wrap(out.toByteArray())).getFingerprint());
+	}
+
+	/**
+	 * Tests that descriptors which are not built-in are fingerprinted by the settings they give, and that definitions
+	 * holding one which does not give them have no fingerprint.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void fingerprint_customDescriptors() {
+		var at = new LanguageDefinition.Builder().addTokenType(new ValueDescriptor("CUSTOM", "@")).build();
+		assertEquals(32, at.getFingerprint().length());
+		assertEquals(at.getFingerprint(),
+				new LanguageDefinition.Builder().addTokenType(new ValueDescriptor("CUSTOM", "@")).build().getFingerprint());
+		assertNotEquals(at.getFingerprint(),
+				new LanguageDefinition.Builder().addTokenType(new ValueDescriptor("CUSTOM", "#")).build().getFingerprint());
+
+		var unknown = new LanguageDefinition.Builder()
+				.addTokenType(new AbstractTokenTypeDescriptor("CUSTOM") {
+					@Override
+					public boolean mayCorrespond(String value) {
+						return "@".startsWith(value);
+					}
+
+					@Override
+					public boolean correspond(String value) {
+						return "@".equals(value);
+					}
+				})
+				.build();
+		assertNull(unknown.getFingerprint());
+		assertFalse(LanguageDefinitionSerializer.isSerializable(unknown));
+	}
+
+	/**
+	 * Tests that ambiguities are resolved by priority, then by name, whatever the order descriptors are added in.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void priority_deterministic() {
+		for(var compile : new boolean[]{false, true}) {
+			var byName = new LanguageDefinition.Builder()
+					.addTokenType("Z_KEYWORD", "F")
+					.addTokenType("A_KEYWORD", "F")
+					.setCompileAutomaton(compile)
+					.build();
+			assertEquals("A_KEYWORD", byName.getTokenTypeDescriptorByValue("F").getName());
+			assertEquals("A_KEYWORD", tokenize(byName, "F")[0].getDescriptor().getName());
+			assertEquals(LanguageDefinition.IDENTIFIER, tokenize(byName, "G")[0].getDescriptor().getName());
+
+			var lowered = new LanguageDefinition.Builder()
+					.addTokenType("A_KEYWORD", "F", LanguageDefinition.DEFAULT_PRIORITY - 1)
+					.setCompileAutomaton(compile)
+					.build();
+			assertEquals(LanguageDefinition.FLOAT, tokenize(lowered, "F")[0].getDescriptor().getName());
+
+			var prioritized = new LanguageDefinition.Builder()
+					.addTokenType("A_KEYWORD", "F")
+					.addTokenType("Z_KEYWORD", "F", LanguageDefinition.DEFINED_PRIORITY + 1)
+					.setCompileAutomaton(compile)
+					.build();
+			assertEquals("Z_KEYWORD", prioritized.getTokenTypeDescriptorByValue("F").getName());
+			assertEquals("Z_KEYWORD", tokenize(prioritized, "F")[0].getDescriptor().getName());
+			assertEquals(0, prioritized.getTypeId(prioritized.getTokenTypeDescriptorByName("Z_KEYWORD")));
+			assertNotEquals(byName.getFingerprint(), prioritized.getFingerprint());
+		}
+	}
+
+	/**
+	 * Tests that defined tokens added without a priority are retained over the built-in descriptors they collide with,
+	 * whatever their name.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void priority_definedOverBuiltIns() {
+		for(var compile : new boolean[]{false, true}) {
+			var def = new LanguageDefinition.Builder()
+					.addTokenType("PRINT_F", "f")
+					.addTokenType("A_F", "F")
+					.addTokenType("ZERO", "0")
+					.setCompileAutomaton(compile)
+					.build();
+			assertEquals("PRINT_F", def.getTokenTypeDescriptorByValue("f").getName());
+
+			var tokens = tokenize(def, "f F 0 1f");
+			String[] expected = {"PRINT_F", "A_F", "ZERO", LanguageDefinition.FLOAT};
+
+			assertEquals(expected.length, tokens.length);
+			for(int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i], tokens[i].getDescriptor().getName());
+			}
+		}
+	}
+
+	/**
+	 * Tests that the compiled definition goes back to the longest accepted input.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void compiled_backtracking() {
+		var tokens = tokenize(definition(true), ".. ....");
+		String[] expected = {".", ".", "...", "."};
+		int[] columns = {1, 2, 4, 7};
+
+		assertEquals(expected.length, tokens.length);
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i], tokens[i].getValue());
+			assertEquals(columns[i], tokens[i].getColumn());
+		}
+	}
+
+	/**
+	 * Tests that built-in descriptors stay live while the input may still lead to a value they correspond to, rather
+	 * than while they may correspond to the input itself, with and without compilation.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void liveness_continuations() {
+		for(var compile : new boolean[]{false, true}) {
+			var def = new LanguageDefinition.Builder()
+					.addTokenType("SEMICOLON", ";")
+					.setCompileAutomaton(compile)
+					.build();
+
+			// "." does not correspond to a float, but ".5" does.
+			var tokens = tokenize(def, "a .5;");
+			assertEquals(3, tokens.length);
+			assertEquals(LanguageDefinition.FLOAT, tokens[1].getDescriptor().getName());
+			assertEquals(".5", tokens[1].getValue());
+
+			var integers = new LanguageDefinition.Builder()
+					.setFeatureList(new FeatureList.Builder().enableDefaults().disableFeature("float").build())
+					.setCompileAutomaton(compile)
+					.build();
+
+			// "0x" does not correspond to an integer, but "0x1" does.
+			tokens = tokenize(integers, "0x1");
+			assertEquals(1, tokens.length);
+			assertEquals("0x1", tokens[0].getValue());
+
+			// "0b" does not lead to an integer: the longest accepted input is read.
+			tokens = tokenize(integers, "0b");
+			assertEquals(2, tokens.length);
+			assertEquals(LanguageDefinition.INTEGER, tokens[0].getDescriptor().getName());
+			assertEquals(LanguageDefinition.IDENTIFIER, tokens[1].getDescriptor().getName());
+
+			// "'ab" may correspond to a char, but no char starts with it.
+			assertEquals(0, tokenize(def, "'ab'").length);
+		}
+	}
+
+	/**
+	 * Tests that descriptors which are not built-in prevent the compilation.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void compiled_customDescriptor() {
+		var def = new LanguageDefinition.Builder()
+				.addTokenType(new AbstractTokenTypeDescriptor("CUSTOM") {
+					@Override
+					public boolean mayCorrespond(String value) {
+						return "@".startsWith(value);
+					}
+
+					@Override
+					public boolean correspond(String value) {
+						return "@".equals(value);
+					}
+				})
+				.setCompileAutomaton(true)
+				.build();
+
+		assertNull(def.getAutomaton());
+		assertEquals("@", tokenize(def, "@")[0].getValue());
+	}
+
+	/**
+	 * Descriptor of a single value, which gives it as its settings.
+	 *
+	 * @since 0.3
+	 */
+	static class ValueDescriptor extends AbstractTokenTypeDescriptor {
+		/**
+		 * Value read by this descriptor.
+		 */
+		private final String value;
+
+		/**
+		 * Creates a new {@code ValueDescriptor}.
+		 *
+		 * @param name name of the descriptor.
+		 * @param value value read by the descriptor.
+		 */
+		ValueDescriptor(String name, String value) {
+			super(name);
+			this.value = value;
+		}
+
+		@Override
+		public boolean mayCorrespond(String value) {
+			return this.value.startsWith(value);
+		}
+
+		@Override
+		public boolean correspond(String value) {
+			return this.value.equals(value);
+		}
+
+		@Override
+		public String getSettings() {
+			return value;
+		}
+	}
+}
@@ -20,9 +20,14 @@
 package universe.lambda.jlcl;
 
 import org.junit.jupiter.api.Test;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTrie;
+import universe.lambda.jlcl.token.descriptor.DefinedTokenTypeDescriptor;
 import universe.lambda.jlcl.token.descriptor.FloatTokenTypeDescriptor;
 import universe.lambda.jlcl.token.descriptor.IntegerTokenTypeDescriptor;
+import universe.lambda.jlcl.token.descriptor.TokenMatcher;
+import universe.lambda.jlcl.token.descriptor.TokenTypeDescriptor;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -102,4 +107,104 @@ class TokenTest {
 			assertFalse(intTTD.correspond(value), value);
 		}
 	}
+
+	/**
+	 * Feeds {@code value} to a new {@link TokenMatcher} of {@code descriptor}, as a {@link LanguageDefinition} holding
+	 * it alone creates it.
+	 *
+	 * @param descriptor descriptor to create the matcher for.
+	 * @param value value to feed.
+	 * @return the status reported for the last code-point, {@link TokenMatcher#DEAD} as soon as one is reported.
+	 */
+	private static int feed(TokenTypeDescriptor descriptor, String value) {
+		var definition = new LanguageDefinition.Builder().setFeatureList(null).addTokenType(descriptor).build();
+		var matcher = definition.newMatcher(definition.getTypeId(descriptor));
+		var status = TokenMatcher.DEAD;
+
+		for(int i = 0; i < value.length(); i++) {
+			status = matcher.feed(value.charAt(i));
+			if(status == TokenMatcher.DEAD) break;
+		}
+		return status;
+	}
+
+	/**
+	 * Tests behavior of the {@link TokenMatcher} of {@link FloatTokenTypeDescriptor}.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void float_matcher() {
+		for(var value: validFloats) {
+			assertEquals(TokenMatcher.ACCEPTING, feed(floatTTD, value), value);
+		}
+
+		for(var value: validIntegers) {
+			assertEquals(TokenMatcher.LIVE, feed(floatTTD, value), value);
+		}
+
+		assertEquals(TokenMatcher.DEAD, feed(floatTTD, "0.1.2"), "0.1.2");
+		assertEquals(TokenMatcher.DEAD, feed(floatTTD, "1x"), "1x");
+	}
+
+	/**
+	 * Tests behavior of the {@link TokenMatcher} of {@link IntegerTokenTypeDescriptor}.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void integer_matcher() {
+		for(var value: validIntegers) {
+			assertEquals(TokenMatcher.ACCEPTING, feed(intTTD, value), value);
+		}
+
+		for(var value: validFloats) {
+			assertEquals(TokenMatcher.DEAD, feed(intTTD, value), value);
+		}
+
+		assertEquals(TokenMatcher.LIVE, feed(intTTD, "0x"), "0x");
+	}
+
+	/**
+	 * Tests behavior of the {@link DefinedTokenTrie}.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void defined_trie() {
+		var trie = new DefinedTokenTrie(new TokenTypeDescriptor[]{
+				new DefinedTokenTypeDescriptor("EQ", "=="),
+				intTTD,
+				new DefinedTokenTypeDescriptor("ASSIGN", "="),
+				new DefinedTokenTypeDescriptor("SAME", "==")
+		});
+
+		assertEquals(3, trie.size());
+		assertFalse(trie.isMerged(1));
+		assertEquals(0, trie.correspond("=="));
+		assertEquals(2, trie.correspond("="));
+		assertEquals(-1, trie.correspond("==="));
+		assertTrue(trie.mayCorrespond("="));
+		assertFalse(trie.mayCorrespond("=!"));
+
+		var node = trie.next(DefinedTokenTrie.ROOT, '=');
+		assertEquals(2, trie.getAccepted(node));
+		assertEquals(DefinedTokenTrie.DEAD, trie.next(node, '!'));
+	}
+
+	/**
+	 * Tests that a {@link FloatTokenTypeDescriptor} is not modified through the array of suffixes it is created with.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void float_suffixesCopied() {
+		var suffixes = new String[]{"F"};
+		var descriptor = new FloatTokenTypeDescriptor(suffixes);
+		suffixes[0] = "X";
+
+		assertTrue(descriptor.correspond("1.5F"));
+		assertFalse(descriptor.correspond("1.5X"));
+		assertEquals("F", descriptor.getSuffixes()[0]);
+	}
 }
@@ -0,0 +1,811 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl;
+
+import org.junit.jupiter.api.Test;
+import universe.lambda.jlcl.token.IncrementalTokenizer;
+import universe.lambda.jlcl.token.MemoryTokenCache;
+import universe.lambda.jlcl.token.ParallelTokenizer;
+import universe.lambda.jlcl.token.PushTokenizer;
+import universe.lambda.jlcl.token.Token;
+import universe.lambda.jlcl.token.TokenBuffer;
+import universe.lambda.jlcl.token.TokenCache;
+import universe.lambda.jlcl.token.TokenPublisher;
+import universe.lambda.jlcl.token.TokenSink;
+import universe.lambda.jlcl.token.TokenizationService;
+import universe.lambda.jlcl.token.Tokenizer;
+import universe.lambda.jlcl.token.TokenizerPool;
+import universe.lambda.jlcl.token.descriptor.AbstractTokenTypeDescriptor;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class containing tests for {@link Tokenizer}.
+ *
+ * @since 0.3
+ */
+class TokenizerTest {
+	/**
+	 * Definition used by these tests.
+	 */
+	private final LanguageDefinition def = new LanguageDefinition.Builder()
+			.addTokenType("PRINT", "PRINT")
+			.addTokenType("VAR", "VAR")
+			.addTokenType("SEMICOLON", ";")
+			.addTokenType("ASSIGN", "=")
+			.addTokenType("PLUS", "+")
+			.addTokenType("ARROW", "→")
+			.build();
+
+	/**
+	 * Tests that the size of the window does not change the read tokens.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void window_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR x = \"a \\\" b\" + 0x1F;";
+		var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+
+		for(int size = 1; size <= 4; size++) {
+			var actual = new Tokenizer(def, new StringReader(text), "test", size).readAllTokens();
+
+			assertEquals(expected.length, actual.length);
+			for(int i = 0; i < expected.length; i++) {
+				// values sliced from the window must not have been overwritten by the following tokens.
+				assertEquals(expected[i].getValue(), actual[i].getText().toString());
+				assertEquals(expected[i].getValue(), actual[i].getValue());
+				assertEquals(expected[i].getLine(), actual[i].getLine());
+				assertEquals(expected[i].getColumn(), actual[i].getColumn());
+			}
+		}
+
+		assertThrows(IllegalArgumentException.class, () -> new Tokenizer(def, new StringReader(text), "test", 0));
+	}
+
+	/**
+	 * Tests that comments are skipped whatever their length.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void comment_long() {
+		var text = "# " + "comment ".repeat(500) + "\nVAR # end";
+		Token[] tokens = new Tokenizer(def, new StringReader(text), "test", 16).readAllTokens();
+
+		assertEquals(1, tokens.length);
+		assertEquals("VAR", tokens[0].getValue());
+		assertEquals(2, tokens[0].getLine());
+		assertEquals(1, tokens[0].getColumn());
+	}
+
+	/**
+	 * Tests that reading a memory-mapped file reads the same tokens as reading it through a {@link java.io.Reader}.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void mapped_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR é → \"😀\" # ç\nPRINT";
+		var file = Files.createTempFile("jlcl", ".txt");
+
+		try {
+			Files.writeString(file, text, StandardCharsets.UTF_8);
+
+			var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+			var actual = Tokenizer.open(def, file, 1).readAllTokens();
+
+			assertEquals(expected.length, actual.length);
+			for(int i = 0; i < expected.length; i++) {
+				assertEquals(expected[i].getValue(), actual[i].getValue());
+				assertEquals(expected[i].getLine(), actual[i].getLine());
+				assertEquals(expected[i].getColumn(), actual[i].getColumn());
+				assertEquals(file.toString(), actual[i].getSource());
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Tests that a {@link universe.lambda.jlcl.token.TokenBuffer} holds the same tokens as {@link Tokenizer#readAllTokens()}.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void buffer_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR é → 0x1F;";
+		var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+		var buffer = new Tokenizer(def, new StringReader(text), "test", 4).readTokenBuffer();
+
+		assertEquals(expected.length, buffer.size());
+		for(int i = 0; i < expected.length; i++) {
+			assertSame(expected[i].getDescriptor(), buffer.getDescriptor(i));
+			assertEquals(def.getTypeId(expected[i].getDescriptor()), buffer.getTypeId(i));
+			assertEquals(expected[i].getValue(), buffer.getValue(i));
+			assertEquals(expected[i].getValue(), text.substring(buffer.getStart(i), buffer.getEnd(i)));
+			assertEquals(expected[i].getLine(), buffer.getLine(i));
+			assertEquals(expected[i].getColumn(), buffer.getColumn(i));
+		}
+
+		assertThrows(IndexOutOfBoundsException.class, () -> buffer.getValue(expected.length));
+	}
+
+	/**
+	 * Tests that lazily computed positions are the same as the ones computed while reading.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void lazy_samePositions() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR\r\r x\n\n= 1;";
+		var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+		var lazy = new Tokenizer(def, new StringReader(text), "test", 4).setLazyPositions(true);
+		var actual = lazy.readAllTokens();
+
+		assertEquals(expected.length, actual.length);
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getLine(), actual[i].getLine());
+			assertEquals(expected[i].getColumn(), actual[i].getColumn());
+		}
+
+		assertEquals(expected[expected.length - 1].getLine(), lazy.getLineIndex().getLineCount());
+		assertThrows(IllegalStateException.class, () -> lazy.setLazyPositions(false));
+	}
+
+	/**
+	 * Tests that a {@link java.util.stream.Stream} of tokens only reads the tokens it needs.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void stream_earlyTermination() {
+		var tokenizer = new Tokenizer(def, new StringReader("VAR a = 1; VAR b = 2;"), "test");
+		var first = tokenizer.stream().limit(3).map(Token::getValue).collect(Collectors.toList());
+
+		assertEquals(List.of("VAR", "a", "="), first);
+		assertEquals("1", tokenizer.readToken().getValue());
+		assertFalse(tokenizer.isAtEnd());
+	}
+
+	/**
+	 * Tests that the end of the source is told apart from errors.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void stream_endAndError() {
+		var valid = new Tokenizer(def, new StringReader("VAR a = 1;"), "test");
+		assertEquals(5, valid.stream().count());
+		assertTrue(valid.isAtEnd());
+		assertFalse(valid.hasFailed());
+
+		var invalid = new Tokenizer(def, new StringReader("VAR a = 1 ? 2;"), "test");
+		var iterator = invalid.iterator();
+		var count = 0;
+		while(iterator.hasNext()) {
+			iterator.next();
+			count++;
+		}
+		assertEquals(4, count);
+		assertFalse(invalid.isAtEnd());
+		assertTrue(invalid.hasFailed());
+		assertThrows(NoSuchElementException.class, iterator::next);
+	}
+
+	/**
+	 * Tests that the {@link ParallelTokenizer} reads the same tokens as a {@link Tokenizer}, whatever the chunks.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void parallel_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR é → \"a\nb\" 0x1F;";
+		var expected = new Tokenizer(def, new StringReader(text), "test").readTokenBuffer();
+		assertTrue(expected.isComplete());
+
+		for(var chunkSize : new int[]{1, 3, 7, 64, text.length()}) {
+			var buffer = ParallelTokenizer.tokenize(def, text, "test", ForkJoinPool.commonPool(), chunkSize);
+
+			assertTrue(buffer.isComplete());
+			assertEquals(expected.size(), buffer.size());
+			for(int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.getTypeId(i), buffer.getTypeId(i));
+				assertEquals(expected.getValue(i), buffer.getValue(i));
+				assertEquals(expected.getStart(i), buffer.getStart(i));
+				assertEquals(expected.getLine(i), buffer.getLine(i));
+				assertEquals(expected.getColumn(i), buffer.getColumn(i));
+			}
+		}
+
+		var invalid = ParallelTokenizer.tokenize(def, "VAR a = 1;\nVAR b = 1 ? 2;\nVAR c;", "test",
+				ForkJoinPool.commonPool(), 4);
+		assertFalse(invalid.isComplete());
+		assertEquals(9, invalid.size());
+	}
+
+	/**
+	 * Tests that the {@link TokenizationService} returns the tokens of each file in input order.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void service_inputOrder() throws IOException, InterruptedException {
+		var small = Files.createTempFile("jlcl", ".src");
+		Files.writeString(small, "VAR a = 1;");
+		var sample = Paths.get("samples/test-sample");
+		var missing = Paths.get("samples/missing-sample");
+		var paths = List.of(sample, small, missing, small, sample);
+
+		var executor = Executors.newFixedThreadPool(3);
+		try {
+			var service = new TokenizationService(def, executor, 2);
+			var results = service.tokenize(paths);
+
+			var expected = Tokenizer.open(def, sample).readTokenBuffer().size();
+			assertEquals(expected, results[0].size());
+			assertEquals(5, results[1].size());
+			assertNull(results[2]);
+			assertEquals(5, results[3].size());
+			assertEquals(expected, results[4].size());
+			assertTrue(results[4].isComplete());
+
+			Map<Path, Integer> sizes = new ConcurrentHashMap<>();
+			service.tokenize(List.of(sample, small), (path, tokens) -> sizes.put(path, tokens.size()));
+			assertEquals(Map.of(sample, expected, small, 5), sizes);
+		} finally {
+			executor.shutdown();
+			Files.delete(small);
+		}
+	}
+
+	/**
+	 * Tests that a {@link Tokenizer} taken again from a {@link TokenizerPool} reads like a new one, that the
+	 * {@link Token}s it read before remain valid, and that it is only released once.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void pool_reuse() {
+		var pool = new TokenizerPool(def, 1);
+		var first = pool.acquire(new StringReader("VAR a = 1 ? 2;"), "first");
+		var firstTokens = first.readAllTokens();
+		assertTrue(first.hasFailed());
+		pool.release(first);
+
+		var second = pool.acquire(new StringReader("VAR b\n= 2;"), "second");
+		assertSame(first, second);
+		assertFalse(second.hasFailed());
+
+		var expected = new Tokenizer(def, new StringReader("VAR b\n= 2;"), "second").readAllTokens();
+		var tokens = second.readAllTokens();
+		assertEquals(expected.length, tokens.length);
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getValue(), tokens[i].getValue());
+			assertEquals(expected[i].getLine(), tokens[i].getLine());
+			assertEquals(expected[i].getColumn(), tokens[i].getColumn());
+			assertEquals("second", tokens[i].getSource());
+		}
+		assertEquals("a", firstTokens[1].getValue());
+
+		var other = new LanguageDefinition.Builder().build();
+		assertThrows(IllegalArgumentException.class, () -> pool.release(new Tokenizer(other, new StringReader(""), "")));
+
+		// a Tokenizer released twice, or never acquired, would be handed to two threads.
+		pool.release(second);
+		assertThrows(IllegalStateException.class, () -> pool.release(second));
+		assertThrows(IllegalStateException.class, () -> pool.release(new Tokenizer(def, new StringReader(""), "")));
+		assertThrows(IllegalStateException.class, () -> new TokenizerPool(def, 1).release(pool.acquire(new StringReader(""), "")));
+	}
+
+	/**
+	 * Tests that a {@link Tokenizer} taken again from a {@link TokenizerPool} reuses its window unless {@link Token}s
+	 * have been sliced from it.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void pool_windowReuse() {
+		var pool = new TokenizerPool(def, 1);
+		var windows = new ArrayList<char[]>();
+		TokenSink sink = (typeId, buffer, start, end, offset, line, column) -> windows.add(buffer);
+
+		var tokenizer = pool.acquire(new StringReader("VAR a = 1;"), "first");
+		tokenizer.tokenize(sink);
+		pool.release(tokenizer);
+		var window = windows.get(0);
+
+		windows.clear();
+		tokenizer = pool.acquire(new StringReader("VAR b = 2;"), "second");
+		tokenizer.tokenize(sink);
+		pool.release(tokenizer);
+		assertSame(window, windows.get(0));
+
+		tokenizer = pool.acquire(new StringReader("VAR c = 3;"), "third");
+		var tokens = tokenizer.readAllTokens();
+		pool.release(tokenizer);
+
+		windows.clear();
+		tokenizer = pool.acquire(new StringReader("VAR d = 4;"), "fourth");
+		tokenizer.tokenize(sink);
+		assertNotSame(window, windows.get(0));
+
+		var expected = new Tokenizer(def, new StringReader("VAR c = 3;"), "third").readAllTokens();
+		assertEquals(expected.length, tokens.length);
+		for(int i = 0; i < expected.length; i++) {
+			assertEquals(expected[i].getValue(), tokens[i].getValue());
+		}
+	}
+
+	/**
+	 * Tests that the {@link IncrementalTokenizer} reads the same tokens as a {@link Tokenizer} reading the edited
+	 * source, including when the previous tokens have been read with a look-ahead, or stopped at an error.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void incremental_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample"));
+		var tokens = new Tokenizer(def, new StringReader(text), "test").readTokenBuffer();
+		assertTrue(tokens.isWholeSource());
+
+		String[][] edits = {{"0", "0", "VAR a;\r"}, {"12", "3", "\"x\ny\""}, {"40", "1", "→ 2.5F"}, {"5", "0", "\""}};
+		for(var edit : edits) {
+			var offset = Integer.parseInt(edit[0]);
+			var removed = Integer.parseInt(edit[1]);
+			text = text.substring(0, offset) + edit[2] + text.substring(offset + removed);
+			tokens = IncrementalTokenizer.retokenize(tokens, offset, removed, edit[2]);
+
+			assertSameTokens(new Tokenizer(def, new StringReader(text), "test").readTokenBuffer(), tokens);
+		}
+
+		var dots = new LanguageDefinition.Builder()
+				.addTokenType("DOTS", "...")
+				.addTokenType("DOT", ".")
+				.setCompileAutomaton(true)
+				.build();
+		var edited = IncrementalTokenizer.retokenize(new Tokenizer(dots, new StringReader(".."), "dots")
+				.readTokenBuffer(), 2, 0, ".");
+		assertEquals(1, edited.size());
+		assertEquals("...", edited.getValue(0));
+
+		// an edit fixing an error reads the tokens after it.
+		var broken = "VAR a = 1 ? 2;\nVAR b = a;";
+		var failed = new Tokenizer(def, new StringReader(broken), "test").readTokenBuffer();
+		assertFalse(failed.isComplete());
+		assertTrue(failed.isWholeSource());
+
+		var fixed = IncrementalTokenizer.retokenize(failed, broken.indexOf('?'), 1, "+");
+		assertTrue(fixed.isComplete());
+		assertSameTokens(new Tokenizer(def, new StringReader(broken.replace('?', '+')), "test").readTokenBuffer(),
+				fixed);
+	}
+
+	/**
+	 * Tests that {@link Tokenizer#tokenize(universe.lambda.jlcl.token.TokenSink)} passes the same tokens as
+	 * {@link Tokenizer#readAllTokens()}.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void sink_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR é → 0x1F;";
+		var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+		var tokenizer = new Tokenizer(def, new StringReader(text), "test", 4);
+		var count = new int[1];
+
+		tokenizer.tokenize((typeId, buffer, start, end, offset, line, column) -> {
+			var token = expected[count[0]++];
+			assertSame(token.getDescriptor(), def.getTokenTypeDescriptor(typeId));
+			assertEquals(token.getValue(), new String(buffer, start, end - start));
+			assertEquals(token.getValue(), text.substring(offset, offset + end - start));
+			assertEquals(token.getLine(), line);
+			assertEquals(token.getColumn(), column);
+		});
+
+		assertEquals(expected.length, count[0]);
+		assertTrue(tokenizer.isAtEnd());
+	}
+
+	/**
+	 * Tests that a {@link universe.lambda.jlcl.token.TokenCursor} reads the same tokens as
+	 * {@link Tokenizer#readAllTokens()}, in place.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void cursor_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR é → 0x1F;";
+		var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+		var cursor = new Tokenizer(def, new StringReader(text), "test", 4).setLazyPositions(true).cursor();
+		var view = (CharSequence) null;
+		var count = 0;
+
+		while(cursor.next()) {
+			var token = expected[count++];
+			if(view == null) view = cursor.getText();
+
+			assertSame(view, cursor.getText());
+			assertEquals(token.getValue(), cursor.getText().toString());
+			assertEquals(token.getValue(), cursor.getValue());
+			assertSame(token.getDescriptor(), cursor.getDescriptor());
+			assertEquals(token.getValue(), text.substring(cursor.getStart(), cursor.getEnd()));
+			assertEquals(token.getLine(), cursor.getLine());
+			assertEquals(token.getColumn(), cursor.getColumn());
+			assertEquals(token.getValue(), cursor.getToken().getValue());
+		}
+
+		assertEquals(expected.length, count);
+		assertFalse(cursor.hasCurrent());
+		assertThrows(IllegalStateException.class, cursor::getText);
+	}
+
+	/**
+	 * Tests that a {@link PushTokenizer} fed chunks of chars or of UTF-8 bytes passes the same tokens as a
+	 * {@link Tokenizer} reading the whole source, and that input fed after an error is ignored.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void push_sameTokens() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample")) + "\r\nVAR é → \"split string\";";
+		var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+		var bytes = text.getBytes(StandardCharsets.UTF_8);
+
+		for(var chunk = 1; chunk <= 7; chunk += 3) {
+			var chars = new ArrayList<String>();
+			var push = new PushTokenizer(def, "test", (typeId, buffer, start, end, offset, line, column) ->
+					chars.add(new String(buffer, start, end - start) + "@" + offset + ":" + line + ":" + column));
+			for(var i = 0; i < text.length(); i += chunk) {
+				push.feed(CharBuffer.wrap(text, i, Math.min(text.length(), i + chunk)));
+			}
+			push.flush();
+
+			// byte chunks split the multi-byte code-points.
+			var utf8 = new ArrayList<String>();
+			var bytePush = new PushTokenizer(def, "test", (typeId, buffer, start, end, offset, line, column) ->
+					utf8.add(new String(buffer, start, end - start) + "@" + offset + ":" + line + ":" + column));
+			for(var i = 0; i < bytes.length; i += chunk) {
+				bytePush.feed(ByteBuffer.wrap(bytes, i, Math.min(bytes.length - i, chunk)));
+			}
+			bytePush.flush();
+
+			assertFalse(push.hasFailed());
+			assertFalse(bytePush.hasFailed());
+			assertEquals(expected.length, chars.size());
+			assertEquals(chars, utf8);
+			for(var i = 0; i < expected.length; i++) {
+				var token = expected[i];
+				var offset = Integer.parseInt(chars.get(i).split("@")[1].split(":")[0]);
+
+				assertEquals(token.getValue(), text.substring(offset, offset + token.getValue().length()));
+				assertEquals(token.getValue() + "@" + offset + ":" + token.getLine() + ":" + token.getColumn(),
+						chars.get(i));
+			}
+			assertThrows(IllegalStateException.class, push::flush);
+		}
+
+		var count = new int[1];
+		var push = new PushTokenizer(def, "test", (typeId, buffer, start, end, offset, line, column) -> count[0]++);
+		push.feed(CharBuffer.wrap("VAR a ? "));
+		assertTrue(push.hasFailed());
+
+		var ignoredChars = CharBuffer.wrap("VAR b;");
+		var ignoredBytes = ByteBuffer.wrap("VAR c;".getBytes(StandardCharsets.UTF_8));
+		push.feed(ignoredChars);
+		push.feed(ignoredBytes);
+		push.flush();
+		assertEquals(2, count[0]);
+		assertFalse(ignoredChars.hasRemaining());
+		assertFalse(ignoredBytes.hasRemaining());
+	}
+
+	/**
+	 * Tests that a {@link TokenPublisher} sends the tokens of its {@link Tokenizer} as they are requested, accepts a
+	 * single subscriber, and cancels the subscription of a subscriber which throws.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void publisher_honoursDemand() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample"));
+		var expected = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+		var publisher = new TokenPublisher(new Tokenizer(def, new StringReader(text), "test"), Runnable::run);
+		var received = new ArrayList<String>();
+		var subscription = new Flow.Subscription[1];
+		var completed = new boolean[1];
+
+		publisher.subscribe(new Flow.Subscriber<>() {
+			@Override
+			public void onSubscribe(Flow.Subscription s) {
+				subscription[0] = s;
+				s.request(2);
+			}
+
+			@Override
+			public void onNext(Token item) {
+				received.add(item.getValue());
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				throw new AssertionError(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				completed[0] = true;
+			}
+		});
+
+		assertEquals(2, received.size());
+		while(!completed[0]) {
+			var before = received.size();
+			subscription[0].request(1);
+			assertTrue(completed[0] || received.size() == before + 1);
+		}
+		assertEquals(expected.length, received.size());
+		for(var i = 0; i < expected.length; i++) assertEquals(expected[i].getValue(), received.get(i));
+
+		var error = new Throwable[1];
+		publisher.subscribe(new Flow.Subscriber<>() {
+			@Override
+			public void onSubscribe(Flow.Subscription s) {}
+
+			@Override
+			public void onNext(Token item) {}
+
+			@Override
+			public void onError(Throwable throwable) {
+				error[0] = throwable;
+			}
+
+			@Override
+			public void onComplete() {}
+		});
+		assertTrue(error[0] instanceof IllegalStateException);
+
+		var calls = new int[1];
+		var rejected = new TokenPublisher(new Tokenizer(def, new StringReader(text), "test"), Runnable::run);
+		rejected.subscribe(new Flow.Subscriber<>() {
+			@Override
+			public void onSubscribe(Flow.Subscription s) {
+				subscription[0] = s;
+				s.request(3);
+			}
+
+			@Override
+			public void onNext(Token item) {
+				calls[0]++;
+				throw new IllegalStateException("rejected");
+			}
+
+			@Override
+			public void onError(Throwable throwable) {
+				throw new AssertionError(throwable);
+			}
+
+			@Override
+			public void onComplete() {
+				throw new AssertionError();
+			}
+		});
+		subscription[0].request(1);
+		assertEquals(1, calls[0]);
+	}
+
+	/**
+	 * Tests that a {@link TokenCache} gives back the tokens it stored, and evicts the least recently used ones.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void cache_storedTokens() throws IOException {
+		var directory = Files.createTempDirectory("jlcl");
+		var sample = Paths.get("samples/test-sample");
+		var expected = Tokenizer.open(def, sample).readTokenBuffer();
+
+		var cache = new TokenCache(def, directory, 1 << 20);
+		assertSameTokens(expected, cache.tokenize(sample));
+		assertEquals(1, listFiles(directory).length);
+		assertSameTokens(expected, cache.tokenize(sample));
+		assertSameTokens(expected, new TokenCache(def, directory, 1 << 20).tokenize(sample));
+		assertEquals(1, listFiles(directory).length);
+
+		// an entry which cannot be read is replaced, without counting it twice.
+		var entry = listFiles(directory)[0];
+		var content = Files.readAllBytes(entry);
+		content[0]++;
+		Files.write(entry, content);
+		assertSameTokens(expected, cache.tokenize(sample));
+		assertEquals(Files.size(entry), cache.getSize());
+
+		var small = Files.createTempFile("jlcl", ".src");
+		try {
+			Files.writeString(small, "VAR a = 1;");
+			Files.setLastModifiedTime(entry, FileTime.fromMillis(0));
+
+			// the entry of the sample is the least recently used one.
+			var bounded = new TokenCache(def, directory, Files.size(entry) + 1);
+			assertEquals(5, bounded.tokenize(small).size());
+			assertFalse(Files.exists(entry));
+			assertEquals(1, listFiles(directory).length);
+			assertTrue(bounded.getSize() <= bounded.getMaxSize());
+		} finally {
+			Files.delete(small);
+			for(var file : listFiles(directory)) Files.delete(file);
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Tests that a {@link TokenCache} reads a file again once a descriptor which is not built-in reads other input, and
+	 * rejects definitions which cannot be fingerprinted.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void cache_changedDescriptor() throws IOException {
+		var directory = Files.createTempDirectory("jlcl");
+		var file = Files.createTempFile("jlcl", ".src");
+		try {
+			Files.writeString(file, "a @@ b");
+			assertEquals(4, new TokenCache(symbolDefinition("@", true), directory, 1 << 20).tokenize(file).size());
+			assertEquals(3, new TokenCache(symbolDefinition("@@", true), directory, 1 << 20).tokenize(file).size());
+			assertEquals(2, listFiles(directory).length);
+
+			assertThrows(IllegalArgumentException.class,
+					() -> new TokenCache(symbolDefinition("@", false), directory, 1 << 20));
+		} finally {
+			Files.delete(file);
+			for(var entry : listFiles(directory)) Files.delete(entry);
+			Files.delete(directory);
+		}
+	}
+
+	/**
+	 * Tests that a {@link MemoryTokenCache} shares the tokens of a text read again, and evicts the least recently used
+	 * ones.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void memoryCache_hitsAndEvictions() {
+		var cache = new MemoryTokenCache(1 << 20, 1);
+		var first = cache.tokenize(def, "VAR a = 1;", "test");
+		assertEquals(5, first.size());
+		assertSame(first, cache.tokenize(def, new StringBuilder("VAR a = 1;"), "test"));
+		assertNotSame(first, cache.tokenize(def, "VAR a = 1;", "other"));
+		assertEquals(1, cache.getHitCount());
+		assertEquals(2, cache.getMissCount());
+		assertEquals(2, cache.size());
+
+		// only one entry fits.
+		var small = new MemoryTokenCache(cache.getWeight() / 2 + 1, 1);
+		var kept = small.tokenize(def, "VAR a = 1;", "test");
+		small.tokenize(def, "VAR b = 2;", "test");
+		assertEquals(1, small.size());
+		assertEquals(1, small.getEvictionCount());
+		assertNotSame(kept, small.tokenize(def, "VAR a = 1;", "test"));
+		assertTrue(small.getWeight() <= small.getMaxWeight());
+	}
+
+	/**
+	 * Tests that read {@link Token}s expose the type id of their descriptor, however they are read.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void token_typeIds() throws IOException {
+		var text = Files.readString(Paths.get("samples/test-sample"));
+		var tokens = new Tokenizer(def, new StringReader(text), "test").readAllTokens();
+		var buffer = new Tokenizer(def, new StringReader(text), "test").readTokenBuffer();
+		var cursor = new Tokenizer(def, new StringReader(text), "test").cursor();
+
+		for(var i = 0; i < tokens.length; i++) {
+			var typeId = def.getTypeId(tokens[i].getDescriptor());
+			assertTrue(typeId >= 0);
+			assertEquals(typeId, tokens[i].getTypeId());
+			assertEquals(typeId, buffer.getToken(i).getTypeId());
+			assertTrue(cursor.next());
+			assertEquals(typeId, cursor.getToken().getTypeId());
+		}
+		assertEquals(-1, new Token(tokens[0].getDescriptor(), "x", "test", 1, 1).getTypeId());
+	}
+
+	/**
+	 * Builds a definition reading a symbol with a descriptor which is not built-in.
+	 *
+	 * @param symbol symbol to read.
+	 * @param settings whether the descriptor gives its settings, so the definition can be fingerprinted.
+	 * @return the definition.
+	 */
+	private static LanguageDefinition symbolDefinition(String symbol, boolean settings) {
+		return new LanguageDefinition.Builder()
+				.addTokenType(new AbstractTokenTypeDescriptor("SYMBOL") {
+					@Override
+					public boolean mayCorrespond(String value) {
+						return symbol.startsWith(value);
+					}
+
+					@Override
+					public boolean correspond(String value) {
+						return symbol.equals(value);
+					}
+
+					@Override
+					public String getSettings() {
+						return settings ? symbol : null;
+					}
+				})
+				.build();
+	}
+
+	/**
+	 * Lists the files of a directory.
+	 *
+	 * @param directory directory to list.
+	 * @return the paths of the files.
+	 *
+	 * @throws IOException if the directory cannot be listed.
+	 */
+	private static Path[] listFiles(Path directory) throws IOException {
+		try(var files = Files.list(directory)) {
+			return files.toArray(Path[]::new);
+		}
+	}
+
+	/**
+	 * Asserts that two {@link TokenBuffer}s hold the same tokens.
+	 *
+	 * @param expected expected tokens.
+	 * @param actual actual tokens.
+	 */
+	private static void assertSameTokens(TokenBuffer expected, TokenBuffer actual) {
+		assertEquals(expected.isComplete(), actual.isComplete());
+		assertEquals(expected.size(), actual.size());
+		for(int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.getTypeId(i), actual.getTypeId(i));
+			assertEquals(expected.getValue(i), actual.getValue(i));
+			assertEquals(expected.getStart(i), actual.getStart(i));
+			assertEquals(expected.getLine(i), actual.getLine(i));
+			assertEquals(expected.getColumn(i), actual.getColumn(i));
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/*
+	Copyright 2019, 2020 Clément Saad
+
+	This file is part of the uLambda Compiler Library.
+
+	The uLambda Compiler Library is free software: you can redistribute it and/or modify
+	it under the terms of the GNU General Public License as published by
+	the Free Software Foundation, either version 3 of the License, or
+	(at your option) any later version.
+
+	The uLambda Compiler Library is distributed in the hope that it will be useful,
+	but WITHOUT ANY WARRANTY; without even the implied warranty of
+	MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+	GNU General Public License for more details.
+
+	You should have received a copy of the GNU General Public License
+	along with the uLambda Compiler Library.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package universe.lambda.jlcl.token;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Class containing tests for {@link MappedSource}. It lives in the package of {@code MappedSource}, which is not
+ * public.
+ *
+ * @since 0.3
+ */
+class MappedSourceTest {
+	/**
+	 * Text mixing ASCII runs with code-points of 2, 3 and 4 bytes in UTF-8, so they straddle the ends of small regions
+	 * at every offset.
+	 */
+	private static final String TEXT = "aéb€c😀deßü日本語"
+			+ "😀😁fghé€😀 VAR x = \"é\";\n"
+			+ "€€€ij😂kél";
+
+	/**
+	 * Maximum counts of code-points to read at once.
+	 */
+	private static final int[] LENGTHS = {2, 3, 4, 7, 64};
+
+	/**
+	 * Tests that valid UTF-8 is decoded as a {@link java.io.Reader} does, whatever the size of regions and the count of
+	 * code-points read at once.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void read_sameAsReader() throws IOException {
+		var file = Files.createTempFile("jlcl", ".src");
+		try {
+			for(int shift = 0; shift < 4; shift++) {
+				var text = "x".repeat(shift) + TEXT;
+				Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+				assertEquals(text, readWithReader(file));
+
+				for(long regionSize = 4; regionSize <= 7; regionSize++) {
+					for(var len : LENGTHS) {
+						var read = new StringBuilder();
+						assertNull(read(file, regionSize, len, read), "region " + regionSize + ", length " + len);
+						assertEquals(text, read.toString(), "region " + regionSize + ", length " + len);
+					}
+				}
+			}
+
+			Files.write(file, new byte[0]);
+			var read = new StringBuilder();
+			assertNull(read(file, 4, 2, read));
+			assertEquals("", read.toString());
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Tests that malformed UTF-8 is reported once the code-points before it have been returned, including a truncated
+	 * code-point at the end of the file.
+	 *
+	 * @since 0.3
+	 */
+	@Test
+	void read_malformedInput() throws IOException {
+		var valid = TEXT.getBytes(StandardCharsets.UTF_8);
+		var file = Files.createTempFile("jlcl", ".src");
+		try {
+			for(var at : new int[]{0, 1, 3, valid.length / 2, valid.length}) {
+				for(var malformed : new byte[][]{{(byte) 0xFF}, {(byte) 0x80}, {(byte) 0xF0, (byte) 0x9F, (byte) 0x98}}) {
+					var bytes = new ByteArrayOutputStream();
+					bytes.write(valid, 0, at);
+					bytes.write(malformed);
+					// a code-point truncated before ASCII is malformed too.
+					if(at < valid.length) bytes.write(valid, at, valid.length - at);
+					Files.write(file, bytes.toByteArray());
+
+					var decoded = readWithReader(file);
+					var expected = decoded.substring(0, decoded.indexOf('�'));
+					for(long regionSize = 4; regionSize <= 7; regionSize++) {
+						for(var len : LENGTHS) {
+							var read = new StringBuilder();
+							assertNotNull(read(file, regionSize, len, read), "region " + regionSize + ", length " + len);
+							assertEquals(expected, read.toString(), "region " + regionSize + ", length " + len);
+						}
+					}
+				}
+			}
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Reads a whole file with a {@link MappedSource}, until its end or an error.
+	 *
+	 * @param file path of the file.
+	 * @param regionSize maximum size of a mapped region.
+	 * @param len maximum count of code-points to read at once.
+	 * @param read builder the read code-points are appended to.
+	 * @return the error which stopped reading, {@code null} if the end of the file has been reached.
+	 *
+	 * @throws IOException if the file cannot be mapped.
+	 */
+	private static IOException read(Path file, long regionSize, int len, StringBuilder read) throws IOException {
+		var source = new MappedSource(file, regionSize);
+		// code-points are read past the start of the array, as the window of a tokenizer does.
+		var buffer = new char[len + 1];
+		try {
+			int count;
+			while((count = source.read(buffer, 1, len)) != -1) {
+				assertTrue(count > 0 && count <= len);
+				read.append(buffer, 1, count);
+			}
+			return null;
+		} catch(IOException e) {
+			return e;
+		}
+	}
+
+	/**
+	 * Reads a whole file with a {@link java.io.Reader}, replacing malformed input with U+FFFD.
+	 *
+	 * @param file path of the file.
+	 * @return the content of the file.
+	 *
+	 * @throws IOException if the file cannot be read.
+	 */
+	private static String readWithReader(Path file) throws IOException {
+		try(var reader = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+			var result = new StringBuilder();
+			var buffer = new char[64];
+			int count;
+			while((count = reader.read(buffer)) != -1) result.append(buffer, 0, count);
+			return result.toString();
+		}
+	}
+}